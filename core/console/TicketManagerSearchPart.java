@@ -0,0 +1,550 @@
+package wbs.services.ticket.core.console;
+
+import static wbs.utils.etc.EnumUtils.enumEqualSafe;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.NumberUtils.parseInteger;
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
+import static wbs.utils.etc.OptionalUtils.optionalGetRequired;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
+import static wbs.utils.etc.OptionalUtils.optionalOf;
+import static wbs.utils.etc.OptionalUtils.optionalOrElseRequired;
+import static wbs.utils.string.StringUtils.stringEqualSafe;
+import static wbs.utils.string.StringUtils.stringFormat;
+import static wbs.web.utils.HtmlBlockUtils.htmlHeadingThreeWrite;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphClose;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphOpen;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphWriteFormat;
+import static wbs.web.utils.HtmlFormUtils.htmlFormClose;
+import static wbs.web.utils.HtmlFormUtils.htmlFormOpenGetAction;
+import static wbs.web.utils.HtmlTableUtils.htmlTableCellWrite;
+import static wbs.web.utils.HtmlTableUtils.htmlTableClose;
+import static wbs.web.utils.HtmlTableUtils.htmlTableHeaderRowWrite;
+import static wbs.web.utils.HtmlTableUtils.htmlTableOpenList;
+import static wbs.web.utils.HtmlTableUtils.htmlTableRowClose;
+import static wbs.web.utils.HtmlTableUtils.htmlTableRowOpen;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import lombok.NonNull;
+
+import wbs.console.helper.manager.ConsoleObjectManager;
+import wbs.console.part.AbstractPagePart;
+import wbs.console.priv.UserPrivChecker;
+import wbs.console.request.ConsoleRequestContext;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.PrototypeComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+
+import wbs.utils.string.FormatWriter;
+
+import wbs.services.ticket.core.logic.TicketLogic;
+import wbs.services.ticket.core.model.TicketFieldStorage;
+import wbs.services.ticket.core.model.TicketFieldTypeRec;
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketRec;
+
+@PrototypeComponent ("ticketManagerSearchPart")
+public
+class TicketManagerSearchPart
+	extends AbstractPagePart {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@SingletonDependency
+	ConsoleObjectManager objectManager;
+
+	@SingletonDependency
+	UserPrivChecker privChecker;
+
+	@SingletonDependency
+	ConsoleRequestContext requestContext;
+
+	@SingletonDependency
+	TicketConsoleHelper ticketHelper;
+
+	@SingletonDependency
+	TicketLogic ticketLogic;
+
+	@SingletonDependency
+	TicketManagerConsoleHelper ticketManagerHelper;
+
+	// constants
+
+	public final static
+	Long maxResults = 100l;
+
+	// state
+
+	TicketManagerRec ticketManager;
+
+	List <TicketFieldTypeRec> ticketFieldTypes;
+
+	Optional <String> codeOptional;
+
+	Optional <String> fieldCodeOptional;
+	Optional <String> valueOptional;
+
+	Optional <List <TicketRec>> ticketsOptional;
+
+	// implementation
+
+	@Override
+	public
+	void prepare (
+			@NonNull Transaction parentTransaction) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"prepare");
+
+		) {
+
+			ticketManager =
+				ticketManagerHelper.findFromContextRequired (
+					transaction);
+
+			ImmutableList.Builder <TicketFieldTypeRec> ticketFieldTypesBuilder =
+				ImmutableList.builder ();
+
+			for (
+				TicketFieldTypeRec ticketFieldType
+					: ticketManager.getTicketFieldTypes ()
+			) {
+
+				if (ticketFieldType.getDeleted ())
+					continue;
+
+				// packed values can only be found through their row copies,
+				// which are only kept for searchable fields
+
+				if (
+
+					enumEqualSafe (
+						ticketManager.getFieldStorage (),
+						TicketFieldStorage.packed)
+
+					&& ! ticketFieldType.getSearchable ()
+
+				) {
+					continue;
+				}
+
+				ticketFieldTypesBuilder.add (
+					ticketFieldType);
+
+			}
+
+			ticketFieldTypes =
+				ticketFieldTypesBuilder.build ();
+
+			codeOptional =
+				requestContext.parameter (
+					"code");
+
+			fieldCodeOptional =
+				requestContext.parameter (
+					"field");
+
+			valueOptional =
+				requestContext.parameter (
+					"value");
+
+			ticketsOptional =
+				optionalAbsent ();
+
+			if (
+
+				optionalIsPresent (
+					codeOptional)
+
+				&& ! codeOptional.get ().isEmpty ()
+
+			) {
+
+				// jump to a ticket by code
+
+				Optional <TicketRec> ticketOptional =
+					ticketLogic.findTicketByCode (
+						transaction,
+						ticketManager,
+						codeOptional.get ().trim ());
+
+				ticketsOptional =
+					optionalOf (
+						optionalIsPresent (
+								ticketOptional)
+							? ImmutableList.<TicketRec> of (
+								ticketOptional.get ())
+							: ImmutableList.<TicketRec> of ());
+
+			} else if (
+
+				optionalIsPresent (
+					fieldCodeOptional)
+
+				&& optionalIsPresent (
+					valueOptional)
+
+				&& ! valueOptional.get ().isEmpty ()
+
+			) {
+
+				// search by field value, only on the fields we offer
+
+				Optional <TicketFieldTypeRec> ticketFieldTypeOptional =
+					Iterables.tryFind (
+						ticketFieldTypes,
+						ticketFieldType ->
+							stringEqualSafe (
+								ticketFieldType.getCode (),
+								optionalGetRequired (
+									fieldCodeOptional)));
+
+				if (
+					! optionalIsPresent (
+						ticketFieldTypeOptional)
+				) {
+
+					requestContext.addError (
+						"Please choose a field to search");
+
+					return;
+
+				}
+
+				TicketFieldTypeRec ticketFieldType =
+					ticketFieldTypeOptional.get ();
+
+				Optional <?> parsedValueOptional =
+					parseValue (
+						ticketFieldType,
+						optionalGetRequired (
+							valueOptional));
+
+				if (
+					optionalIsPresent (
+						parsedValueOptional)
+				) {
+
+					ticketsOptional =
+						optionalOf (
+							ticketHelper.findTicketsByFieldValue (
+								transaction,
+								ticketManager,
+								ticketFieldType,
+								parsedValueOptional.get (),
+								maxResults));
+
+				} else {
+
+					requestContext.addError (
+						stringFormat (
+							"Please enter a valid value for %s",
+							ticketFieldType.getName ()));
+
+				}
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public
+	void renderHtmlBodyContent (
+			@NonNull Transaction parentTransaction,
+			@NonNull FormatWriter formatWriter) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"renderHtmlBodyContent");
+
+		) {
+
+			requestContext.flushNotices (
+				formatWriter);
+
+			goCodeSearch (
+				formatWriter);
+
+			goFieldSearch (
+				transaction,
+				formatWriter);
+
+			goResults (
+				transaction,
+				formatWriter);
+
+		}
+
+	}
+
+	void goCodeSearch (
+			@NonNull FormatWriter formatWriter) {
+
+		htmlHeadingThreeWrite (
+			formatWriter,
+			"Go to ticket");
+
+		htmlFormOpenGetAction (
+			formatWriter,
+			requestContext.resolveLocalUrl (
+				"/ticketManager.search"));
+
+		htmlParagraphOpen (
+			formatWriter);
+
+		formatWriter.writeLineFormat (
+			"<input",
+			" type=\"text\"",
+			" name=\"code\"",
+			" value=\"%h\"",
+			optionalOrElseRequired (
+				codeOptional,
+				""),
+			" placeholder=\"ticket code\"",
+			">");
+
+		formatWriter.writeLineFormat (
+			"<input",
+			" type=\"submit\"",
+			" value=\"go\"",
+			">");
+
+		htmlParagraphClose (
+			formatWriter);
+
+		htmlFormClose (
+			formatWriter);
+
+	}
+
+	void goFieldSearch (
+			@NonNull Transaction parentTransaction,
+			@NonNull FormatWriter formatWriter) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"goFieldSearch");
+
+		) {
+
+			htmlHeadingThreeWrite (
+				formatWriter,
+				"Search by field");
+
+			htmlFormOpenGetAction (
+				formatWriter,
+				requestContext.resolveLocalUrl (
+					"/ticketManager.search"));
+
+			htmlParagraphOpen (
+				formatWriter);
+
+			formatWriter.writeLineFormat (
+				"<select name=\"field\">");
+
+			for (
+				TicketFieldTypeRec ticketFieldType
+					: ticketFieldTypes
+			) {
+
+				formatWriter.writeLineFormat (
+					"<option",
+					" value=\"%h\"",
+					ticketFieldType.getCode (),
+					stringEqualSafe (
+							ticketFieldType.getCode (),
+							optionalOrElseRequired (
+								fieldCodeOptional,
+								""))
+						? " selected"
+						: "",
+					">%h</option>",
+					ticketFieldType.getName ());
+
+			}
+
+			formatWriter.writeLineFormat (
+				"</select>");
+
+			formatWriter.writeLineFormat (
+				"<input",
+				" type=\"text\"",
+				" name=\"value\"",
+				" value=\"%h\"",
+				optionalOrElseRequired (
+					valueOptional,
+					""),
+				">");
+
+			formatWriter.writeLineFormat (
+				"<input",
+				" type=\"submit\"",
+				" value=\"search\"",
+				">");
+
+			htmlParagraphClose (
+				formatWriter);
+
+			htmlFormClose (
+				formatWriter);
+
+		}
+
+	}
+
+	void goResults (
+			@NonNull Transaction parentTransaction,
+			@NonNull FormatWriter formatWriter) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"goResults");
+
+		) {
+
+			if (
+				! optionalIsPresent (
+					ticketsOptional)
+			) {
+				return;
+			}
+
+			List <TicketRec> tickets =
+				optionalGetRequired (
+					ticketsOptional);
+
+			htmlHeadingThreeWrite (
+				formatWriter,
+				"Results");
+
+			if (tickets.isEmpty ()) {
+
+				htmlParagraphWriteFormat (
+					formatWriter,
+					"No tickets found");
+
+				return;
+
+			}
+
+			htmlTableOpenList (
+				formatWriter);
+
+			htmlTableHeaderRowWrite (
+				formatWriter,
+				"Ticket",
+				"State",
+				"Notes");
+
+			for (
+				TicketRec ticket
+					: tickets
+			) {
+
+				htmlTableRowOpen (
+					formatWriter);
+
+				objectManager.writeTdForObjectMiniLink (
+					transaction,
+					formatWriter,
+					privChecker,
+					ticket);
+
+				objectManager.writeTdForObjectMiniLink (
+					transaction,
+					formatWriter,
+					privChecker,
+					ticket.getTicketState ());
+
+				htmlTableCellWrite (
+					formatWriter,
+					integerToDecimalString (
+						ticket.getNumNotes ()));
+
+				htmlTableRowClose (
+					formatWriter);
+
+			}
+
+			htmlTableClose (
+				formatWriter);
+
+		}
+
+	}
+
+	private
+	Optional <?> parseValue (
+			@NonNull TicketFieldTypeRec ticketFieldType,
+			@NonNull String value) {
+
+		switch (ticketFieldType.getDataType ()) {
+
+		case string:
+
+			return optionalOf (
+				value);
+
+		case number:
+		case object:
+
+			return parseInteger (
+				value.trim ());
+
+		case bool:
+
+			if (
+				stringEqualSafe (
+					value,
+					"yes")
+			) {
+				return optionalOf (
+					true);
+			}
+
+			if (
+				stringEqualSafe (
+					value,
+					"no")
+			) {
+				return optionalOf (
+					false);
+			}
+
+			return optionalAbsent ();
+
+		default:
+
+			throw new RuntimeException ();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,344 @@
+package wbs.services.ticket.core.console;
+
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.string.StringUtils.stringFormat;
+import static wbs.web.utils.HtmlBlockUtils.htmlHeadingThreeWrite;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphWriteFormat;
+import static wbs.web.utils.HtmlTableUtils.htmlTableCellWrite;
+import static wbs.web.utils.HtmlTableUtils.htmlTableClose;
+import static wbs.web.utils.HtmlTableUtils.htmlTableHeaderRowWrite;
+import static wbs.web.utils.HtmlTableUtils.htmlTableOpenList;
+import static wbs.web.utils.HtmlTableUtils.htmlTableRowClose;
+import static wbs.web.utils.HtmlTableUtils.htmlTableRowOpen;
+
+import lombok.NonNull;
+
+import org.joda.time.Instant;
+
+import wbs.console.part.AbstractPagePart;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.PrototypeComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+
+import wbs.utils.string.FormatWriter;
+
+import wbs.services.ticket.core.logic.TicketStateTimeStats;
+import wbs.services.ticket.core.model.TicketManagerRec;
+
+@PrototypeComponent ("ticketManagerStatsPart")
+public
+class TicketManagerStatsPart
+	extends AbstractPagePart {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@SingletonDependency
+	TicketConsoleHelper ticketHelper;
+
+	@SingletonDependency
+	TicketManagerConsoleHelper ticketManagerHelper;
+
+	@SingletonDependency
+	TicketStateTimeStats ticketStateTimeStats;
+
+	// state
+
+	Long backlog;
+
+	// implementation
+
+	@Override
+	public
+	void prepare (
+			@NonNull Transaction parentTransaction) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"prepare");
+
+		) {
+
+			// counted here rather than taken from the stats, which only cover
+			// the daemon when it runs in this process, and all managers at once
+
+			TicketManagerRec ticketManager =
+				ticketManagerHelper.findFromContextRequired (
+					transaction);
+
+			backlog =
+				ticketHelper.countUnqueuedTicketsDueBefore (
+					transaction,
+					ticketManager,
+					Instant.now ());
+
+		}
+
+	}
+
+	@Override
+	public
+	void renderHtmlBodyContent (
+			@NonNull Transaction parentTransaction,
+			@NonNull FormatWriter formatWriter) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"renderHtmlBodyContent");
+
+		) {
+
+			htmlHeadingThreeWrite (
+				formatWriter,
+				"Due backlog");
+
+			htmlParagraphWriteFormat (
+				formatWriter,
+				"%h tickets in this manager are due and not yet queued",
+				integerToDecimalString (
+					backlog));
+
+			goStateTime (
+				formatWriter);
+
+			goQueueLag (
+				formatWriter);
+
+		}
+
+	}
+
+	void goStateTime (
+			@NonNull FormatWriter formatWriter) {
+
+		htmlHeadingThreeWrite (
+			formatWriter,
+			"State time daemon");
+
+		htmlParagraphWriteFormat (
+			formatWriter,
+			"Counters cover every ticket manager, for this process since it " +
+			"started");
+
+		htmlTableOpenList (
+			formatWriter);
+
+		htmlTableHeaderRowWrite (
+			formatWriter,
+			"Statistic",
+			"Value");
+
+		writeRow (
+			formatWriter,
+			"Ticks",
+			ticketStateTimeStats.numTicks ());
+
+		writeRowMillis (
+			formatWriter,
+			"Last tick",
+			ticketStateTimeStats.lastTickMillis ());
+
+		writeRowMillis (
+			formatWriter,
+			"Mean tick",
+			ticketStateTimeStats.meanTickMillis ());
+
+		writeRowMillis (
+			formatWriter,
+			"Max tick",
+			ticketStateTimeStats.maxTickMillis ());
+
+		writeRow (
+			formatWriter,
+			"Tickets scanned",
+			ticketStateTimeStats.numScanned ());
+
+		writeRow (
+			formatWriter,
+			"Tickets due",
+			ticketStateTimeStats.numDue ());
+
+		writeRow (
+			formatWriter,
+			"Tickets queued",
+			ticketStateTimeStats.numQueued ());
+
+		writeRow (
+			formatWriter,
+			"Tickets skipped",
+			ticketStateTimeStats.numSkipped ());
+
+		writeRow (
+			formatWriter,
+			"Backlog after last tick",
+			ticketStateTimeStats.backlog ());
+
+		writeRow (
+			formatWriter,
+			"Batches",
+			ticketStateTimeStats.numBatches ());
+
+		writeRow (
+			formatWriter,
+			"Batch failures",
+			ticketStateTimeStats.numBatchFailures ());
+
+		writeRowMillis (
+			formatWriter,
+			"Mean batch",
+			ticketStateTimeStats.meanBatchMillis ());
+
+		writeRowMillis (
+			formatWriter,
+			"Max batch",
+			ticketStateTimeStats.maxBatchMillis ());
+
+		htmlTableClose (
+			formatWriter);
+
+	}
+
+	void goQueueLag (
+			@NonNull FormatWriter formatWriter) {
+
+		htmlHeadingThreeWrite (
+			formatWriter,
+			"Queueing lag");
+
+		htmlParagraphWriteFormat (
+			formatWriter,
+			"Lag covers every ticket manager");
+
+		htmlTableOpenList (
+			formatWriter);
+
+		htmlTableHeaderRowWrite (
+			formatWriter,
+			"Percentile",
+			"Lag");
+
+		writeRowMillis (
+			formatWriter,
+			"50%",
+			ticketStateTimeStats.lagPercentileMillis (50));
+
+		writeRowMillis (
+			formatWriter,
+			"90%",
+			ticketStateTimeStats.lagPercentileMillis (90));
+
+		writeRowMillis (
+			formatWriter,
+			"99%",
+			ticketStateTimeStats.lagPercentileMillis (99));
+
+		writeRowMillis (
+			formatWriter,
+			"Max",
+			ticketStateTimeStats.maxLagMillis ());
+
+		htmlTableClose (
+			formatWriter);
+
+		// histogram, leaving out empty buckets
+
+		htmlTableOpenList (
+			formatWriter);
+
+		htmlTableHeaderRowWrite (
+			formatWriter,
+			"Lag under",
+			"Tickets");
+
+		long[] lagBucketCounts =
+			ticketStateTimeStats.lagBucketCounts ();
+
+		for (
+			int bucket = 0;
+			bucket < lagBucketCounts.length;
+			bucket ++
+		) {
+
+			if (lagBucketCounts [bucket] == 0) {
+				continue;
+			}
+
+			writeRow (
+				formatWriter,
+				bucket == lagBucketCounts.length - 1
+					? "(longer)"
+					: stringFormat (
+						"%sms",
+						integerToDecimalString (
+							TicketStateTimeStats.lagBucketLimitMillis (
+								bucket))),
+				lagBucketCounts [bucket]);
+
+		}
+
+		htmlTableClose (
+			formatWriter);
+
+	}
+
+	private
+	void writeRow (
+			@NonNull FormatWriter formatWriter,
+			@NonNull String label,
+			long value) {
+
+		htmlTableRowOpen (
+			formatWriter);
+
+		htmlTableCellWrite (
+			formatWriter,
+			label);
+
+		htmlTableCellWrite (
+			formatWriter,
+			integerToDecimalString (
+				value));
+
+		htmlTableRowClose (
+			formatWriter);
+
+	}
+
+	private
+	void writeRowMillis (
+			@NonNull FormatWriter formatWriter,
+			@NonNull String label,
+			long millis) {
+
+		htmlTableRowOpen (
+			formatWriter);
+
+		htmlTableCellWrite (
+			formatWriter,
+			label);
+
+		htmlTableCellWrite (
+			formatWriter,
+			stringFormat (
+				"%sms",
+				integerToDecimalString (
+					millis)));
+
+		htmlTableRowClose (
+			formatWriter);
+
+	}
+
+}
@@ -1,11 +1,12 @@
 package wbs.services.ticket.core.console;
 
 import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.NumberUtils.parseIntegerRequired;
 import static wbs.utils.string.StringUtils.stringFormat;
 
 import lombok.NonNull;
 
-import org.joda.time.Instant;
+import org.hibernate.exception.ConstraintViolationException;
 
 import wbs.console.action.ConsoleAction;
 import wbs.console.request.ConsoleRequestContext;
@@ -23,9 +24,9 @@ import wbs.framework.logging.OwnedTaskLogger;
 import wbs.framework.logging.TaskLogger;
 
 import wbs.platform.currency.logic.CurrencyLogic;
-import wbs.platform.queue.logic.QueueLogic;
 import wbs.platform.user.console.UserConsoleLogic;
 
+import wbs.services.ticket.core.logic.TicketLogic;
 import wbs.services.ticket.core.model.TicketRec;
 import wbs.services.ticket.core.model.TicketTemplateRec;
 import wbs.web.responder.WebResponder;
@@ -49,14 +50,11 @@ class TicketPendingFormAction
 	@SingletonDependency
 	TicketConsoleHelper ticketHelper;
 
-	@SingletonDependency
-	TicketNoteConsoleHelper ticketNoteHelper;
-
 	@SingletonDependency
 	TicketTemplateConsoleHelper ticketTemplateHelper;
 
 	@SingletonDependency
-	QueueLogic queueLogic;
+	TicketLogic ticketLogic;
 
 	@SingletonDependency
 	ConsoleRequestContext requestContext;
@@ -64,6 +62,15 @@ class TicketPendingFormAction
 	@SingletonDependency
 	UserConsoleLogic userConsoleLogic;
 
+	// constants
+
+	public final static
+	long maxAttempts = 3;
+
+	public final static
+	String noteIndexConstraintName =
+		"ticket_note_ticket_index";
+
 	// prototype dependencies
 
 	@PrototypeDependency
@@ -104,13 +111,65 @@ class TicketPendingFormAction
 	WebResponder goReal (
 			@NonNull TaskLogger parentTaskLogger) {
 
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"goReal");
+
+		) {
+
+			// appends lock the ticket, but a writer that numbers its own notes
+			// can still take the index we chose, in which case the unique index
+			// rejects our insert and we simply try again
+
+			for (
+				long attempt = 1;
+				;
+				attempt ++
+			) {
+
+				try {
+
+					return goAttempt (
+						taskLogger);
+
+				} catch (ConstraintViolationException exception) {
+
+					if (
+
+						! noteIndexConstraintName.equals (
+							exception.getConstraintName ())
+
+						|| attempt == maxAttempts
+
+					) {
+						throw exception;
+					}
+
+					taskLogger.warningFormat (
+						"Ticket note index collision, retrying");
+
+				}
+
+			}
+
+		}
+
+	}
+
+	private
+	WebResponder goAttempt (
+			@NonNull TaskLogger parentTaskLogger) {
+
 		try (
 
 			OwnedTransaction transaction =
 				database.beginReadWrite (
 					logContext,
 					parentTaskLogger,
-					"goReal");
+					"goAttempt");
 
 		) {
 
@@ -137,19 +196,6 @@ class TicketPendingFormAction
 					requestContext.parameterIntegerRequired (
 						"template"));
 
-			// remove old queue item
-
-			queueLogic.processQueueItem (
-				transaction,
-				ticket.getQueueItem (),
-				userConsoleLogic.userRequired (
-					transaction));
-
-			ticket
-
-				.setQueueItem (
-					null);
-
 			// update ticket timestamp
 
 			String timpestampString =
@@ -159,37 +205,14 @@ class TicketPendingFormAction
 						integerToDecimalString (
 							template.getTicketState ().getId ())));
 
-			Integer timestamp =
-				Integer.parseInt (
-					timpestampString);
-
-			if (
-				timestamp >= template.getTicketState ().getMinimum ()
-				&& timestamp <= template.getTicketState ().getMaximum ()
-			) {
-
-				// update ticket state
-
-				ticket
-
-					.setTicketState (
-						template.getTicketState ());
-
-				// set new timestamp
-
-				ticket.setTimestamp(
-					Instant.now ()
-						.plus(timestamp * 1000));
-
-				ticket.setQueued (
-					false);
-
-			} else {
-
-				throw new RuntimeException (
-					"Timestamp out of bounds");
-
-			}
+			ticketLogic.applyTemplate (
+				transaction,
+				ticket,
+				template,
+				parseIntegerRequired (
+					timpestampString),
+				userConsoleLogic.userRequired (
+					transaction));
 
 			// check if a new note was added
 
@@ -199,25 +222,10 @@ class TicketPendingFormAction
 
 			if (! noteText.isEmpty ()) {
 
-				ticketNoteHelper.insert (
+				ticketLogic.addNote (
 					transaction,
-					ticketNoteHelper.createInstance ()
-
-					.setTicket (
-						ticket)
-
-					.setIndex (
-						ticket.getNumNotes ())
-
-					.setNoteText (
-						noteText)
-
-				);
-
-				ticket
-
-					.setNumNotes (
-						ticket.getNumNotes () + 1);
+					ticket,
+					noteText);
 
 			}
 
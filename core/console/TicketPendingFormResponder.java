@@ -1,5 +1,6 @@
 package wbs.services.ticket.core.console;
 
+import static wbs.utils.etc.NullUtils.isNull;
 import static wbs.utils.etc.NumberUtils.integerToDecimalString;
 import static wbs.web.utils.HtmlAttributeUtils.htmlAttribute;
 import static wbs.web.utils.HtmlAttributeUtils.htmlClassAttribute;
@@ -31,7 +32,6 @@ import static wbs.web.utils.HtmlUtils.htmlLinkWrite;
 import java.util.List;
 import java.util.Set;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -45,7 +45,9 @@ import wbs.console.responder.ConsoleHtmlResponder;
 
 import wbs.framework.component.annotations.ClassSingletonDependency;
 import wbs.framework.component.annotations.PrototypeComponent;
+import wbs.framework.component.annotations.PrototypeDependency;
 import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.component.manager.ComponentProvider;
 import wbs.framework.database.NestedTransaction;
 import wbs.framework.database.Transaction;
 import wbs.framework.logging.LogContext;
@@ -53,10 +55,13 @@ import wbs.framework.logging.LogContext;
 import wbs.platform.currency.logic.CurrencyLogic;
 
 import wbs.utils.string.FormatWriter;
+import wbs.utils.string.StringFormatWriter;
 
+import wbs.services.ticket.core.logic.TicketManagerConfig;
+import wbs.services.ticket.core.logic.TicketManagerConfigCache;
+import wbs.services.ticket.core.logic.TicketTemplateSnapshot;
 import wbs.services.ticket.core.model.TicketRec;
 import wbs.services.ticket.core.model.TicketStateRec;
-import wbs.services.ticket.core.model.TicketTemplateRec;
 
 @PrototypeComponent ("ticketPendingFormResponder")
 public
@@ -80,12 +85,24 @@ class TicketPendingFormResponder
 	@SingletonDependency
 	TicketConsoleHelper ticketHelper;
 
+	@SingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	// prototype dependencies
+
+	@PrototypeDependency
+	ComponentProvider <TicketPendingHistoryPart> historyPartProvider;
+
 	// state
 
 	TicketRec ticket;
 	TicketStateRec ticketState;
 
-	List <TicketTemplateRec> templates;
+	TicketManagerConfig ticketManagerConfig;
+
+	List <TicketTemplateSnapshot> templates;
+
+	TicketPendingHistoryPart historyPart;
 
 	String summaryUrl;
 
@@ -124,8 +141,23 @@ class TicketPendingFormResponder
 		) {
 
 			ticket =
-				ticketHelper.findFromContextRequired (
-					transaction);
+				ticketHelper.findTicketForPending (
+					transaction,
+					requestContext.stuffIntegerRequired (
+						"ticketId"));
+
+			// fall back to the usual lookup, which reports a missing ticket
+
+			if (
+				isNull (
+					ticket)
+			) {
+
+				ticket =
+					ticketHelper.findFromContextRequired (
+						transaction);
+
+			}
 
 			ticketState =
 				ticket.getTicketState ();
@@ -138,24 +170,26 @@ class TicketPendingFormResponder
 						ticket.getId ()),
 					"/ticket.pending.history");
 
-			ImmutableList.Builder <TicketTemplateRec> templatesBuilder =
-				ImmutableList.<TicketTemplateRec> builder ();
+			ticketManagerConfig =
+				ticketManagerConfigCache.config (
+					transaction,
+					ticket.getTicketManager ());
 
-			for (
-				TicketTemplateRec template
-					: ticket.getTicketManager ().getTicketTemplates ()
-			) {
+			templates =
+				ticketManagerConfig.templates ();
 
-				if (template.getDeleted ())
-					continue;
+			// prepare the history in this transaction, rather than having the
+			// main frame load it with a second request
 
-				templatesBuilder.add (
-					template);
+			historyPart =
+				historyPartProvider.provide (
+					transaction)
 
-			}
+				.ticket (
+					ticket);
 
-			templates =
-				templatesBuilder.build ();
+			historyPart.prepare (
+				transaction);
 
 		}
 
@@ -180,7 +214,18 @@ class TicketPendingFormResponder
 				transaction,
 				formatWriter);
 
-			// script block
+			// render history
+
+			StringFormatWriter historyWriter =
+				new StringFormatWriter ();
+
+			historyPart.renderHtmlBodyContent (
+				transaction,
+				historyWriter);
+
+			// script block, writes the history into the main frame once it has
+			// loaded a blank page, along with our style sheets, falling back to
+			// loading the history page if we can't find the frame
 
 			htmlScriptBlockOpen (
 				formatWriter);
@@ -189,17 +234,45 @@ class TicketPendingFormResponder
 				"top.show_inbox (true);");
 
 			formatWriter.writeLineFormat (
-				"top.frames ['main'].location = 'about:blank';");
+				"var mainFrameElement = top.document.getElementsByName ('main') [0];");
 
 			formatWriter.writeLineFormatIncreaseIndent (
-				"window.setTimeout (function () {");
+				"if (mainFrameElement) {");
+
+			formatWriter.writeLineFormatIncreaseIndent (
+				"$(mainFrameElement).one ('load', function () {");
+
+			formatWriter.writeLineFormat (
+				"var mainDocument = top.frames ['main'].document;");
+
+			formatWriter.writeLineFormatIncreaseIndent (
+				"$('link[rel=stylesheet]').each (function () {");
+
+			formatWriter.writeLineFormat (
+				"mainDocument.head.appendChild (mainDocument.importNode (this, true));");
+
+			formatWriter.writeLineFormatDecreaseIndent (
+				"});");
+
+			formatWriter.writeLineFormat (
+				"mainDocument.body.innerHTML = '%j';",
+				historyWriter.toString ());
+
+			formatWriter.writeLineFormatDecreaseIndent (
+				"});");
+
+			formatWriter.writeLineFormat (
+				"top.frames ['main'].location = 'about:blank';");
+
+			formatWriter.writeLineFormatDecreaseIncreaseIndent (
+				"} else {");
 
 			formatWriter.writeLineFormat (
 				"top.frames ['main'].location = '%j';",
 				summaryUrl);
 
 			formatWriter.writeLineFormatDecreaseIndent (
-				"}, 1);");
+				"}");
 
 			htmlScriptBlockClose (
 				formatWriter);
@@ -317,12 +390,12 @@ class TicketPendingFormResponder
 				"New State",
 				"Time to queue");
 
-			List <TicketTemplateRec> templatesReversed =
+			List <TicketTemplateSnapshot> templatesReversed =
 				Lists.reverse (
 					templates);
 
 			for (
-				TicketTemplateRec template
+				TicketTemplateSnapshot template
 					: templatesReversed
 			) {
 
@@ -390,7 +463,7 @@ class TicketPendingFormResponder
 	void doTemplate (
 			@NonNull Transaction parentTransaction,
 			@NonNull FormatWriter formatWriter,
-			@NonNull TicketTemplateRec template) {
+			@NonNull TicketTemplateSnapshot template) {
 
 		try (
 
@@ -408,7 +481,7 @@ class TicketPendingFormResponder
 				htmlDataAttribute (
 					"template",
 					integerToDecimalString (
-						template.getId ())));
+						template.id ())));
 
 			/*
 			if (template.getTicketState()
@@ -462,7 +535,7 @@ class TicketPendingFormResponder
 			htmlTableCellWriteHtml (
 				formatWriter,
 				htmlEncodeNonBreakingWhitespace (
-					template.getName ()));
+					template.name ()));
 
 			/*
 			printFormat (
@@ -480,7 +553,7 @@ class TicketPendingFormResponder
 
 				" id=\"timestamp-%h\"",
 				integerToDecimalString (
-					template.getId ()),
+					template.id ()),
 
 				" type=\"textarea\"",
 
@@ -491,7 +564,9 @@ class TicketPendingFormResponder
 
 				" value=\"%h\"",
 				integerToDecimalString (
-					template.getTicketState ().getMinimum ()),
+					ticketManagerConfig.stateRequired (
+						template.ticketStateId ()
+					).minimum ()),
 
 				">");
 
@@ -2,12 +2,25 @@ package wbs.services.ticket.core.console;
 
 import static wbs.utils.collection.CollectionUtils.emptyList;
 import static wbs.utils.collection.MapUtils.emptyMap;
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.NumberUtils.parseInteger;
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
 import static wbs.web.utils.HtmlBlockUtils.htmlHeadingThreeWrite;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphClose;
+import static wbs.web.utils.HtmlBlockUtils.htmlParagraphOpen;
 import static wbs.web.utils.HtmlTableUtils.htmlTableClose;
 import static wbs.web.utils.HtmlTableUtils.htmlTableHeaderRowWrite;
 import static wbs.web.utils.HtmlTableUtils.htmlTableOpenDetails;
 import static wbs.web.utils.HtmlTableUtils.htmlTableRowClose;
 import static wbs.web.utils.HtmlTableUtils.htmlTableRowOpen;
+import static wbs.web.utils.HtmlUtils.htmlLinkWrite;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
 
 import lombok.NonNull;
 
@@ -16,6 +29,7 @@ import wbs.console.forms.core.ConsoleFormType;
 import wbs.console.helper.manager.ConsoleObjectManager;
 import wbs.console.part.AbstractPagePart;
 import wbs.console.priv.UserPrivChecker;
+import wbs.console.request.ConsoleRequestContext;
 
 import wbs.framework.component.annotations.ClassSingletonDependency;
 import wbs.framework.component.annotations.NamedDependency;
@@ -56,15 +70,26 @@ class TicketPendingHistoryPart
 	@NamedDependency ("ticketPendingHistoryStateFormType")
 	ConsoleFormType <TicketStateRec> ticketStateFormType;
 
+	@SingletonDependency
+	ConsoleRequestContext requestContext;
+
 	@SingletonDependency
 	TicketStateConsoleHelper ticketStateHelper;
 
 	@SingletonDependency
 	TicketConsoleHelper ticketHelper;
 
+	@SingletonDependency
+	TicketNoteConsoleHelper ticketNoteHelper;
+
 	@SingletonDependency
 	UserPrivChecker privChecker;
 
+	// constants
+
+	public final static
+	Long notesPageSize = 50l;
+
 	// state
 
 	ConsoleForm <TicketRec> ticketForm;
@@ -73,6 +98,22 @@ class TicketPendingHistoryPart
 
 	TicketRec ticket;
 
+	Optional <Long> notesBeforeIndex;
+	List <TicketNoteRec> ticketNotes;
+
+	// accessors
+
+	public
+	TicketPendingHistoryPart ticket (
+			@NonNull TicketRec ticket) {
+
+		this.ticket =
+			ticket;
+
+		return this;
+
+	}
+
 	// implementation
 
 	@Override
@@ -89,11 +130,55 @@ class TicketPendingHistoryPart
 
 		) {
 
-			// load data
+			// load data, unless the pending form has already done so
+
+			if (
+				isNull (
+					ticket)
+			) {
+
+				ticket =
+					ticketHelper.findTicketForPending (
+						transaction,
+						requestContext.stuffIntegerRequired (
+							"ticketId"));
+
+			}
+
+			// fall back to the usual lookup, which reports a missing ticket
+
+			if (
+				isNull (
+					ticket)
+			) {
+
+				ticket =
+					ticketHelper.findFromContextRequired (
+						transaction);
+
+			}
+
+			// load one page of notes, newest first
 
-			ticket =
-				ticketHelper.findFromContextRequired (
-					transaction);
+			Optional <String> notesBeforeParam =
+				requestContext.parameter (
+					"notes-before");
+
+			// anything we can't make sense of shows the newest notes
+
+			notesBeforeIndex =
+				optionalIsPresent (
+						notesBeforeParam)
+					? parseInteger (
+						notesBeforeParam.get ())
+					: optionalAbsent ();
+
+			ticketNotes =
+				ticketNoteHelper.findTicketNotes (
+					transaction,
+					ticket,
+					notesBeforeIndex,
+					notesPageSize);
 
 			// form contexts
 
@@ -209,7 +294,7 @@ class TicketPendingHistoryPart
 
 			for (
 				TicketNoteRec ticketNote
-					: ticket.getTicketNotes ()
+					: ticketNotes
 			) {
 
 				htmlTableRowOpen (
@@ -229,8 +314,70 @@ class TicketPendingHistoryPart
 			htmlTableClose (
 				formatWriter);
 
+			goTicketNotesLinks (
+				formatWriter);
+
+		}
+
+	}
+
+	private
+	void goTicketNotesLinks (
+			@NonNull FormatWriter formatWriter) {
+
+		boolean moreNotes =
+			ticketNotes.size () == notesPageSize;
+
+		if (
+			! optionalIsPresent (
+				notesBeforeIndex)
+			&& ! moreNotes
+		) {
+			return;
+		}
+
+		htmlParagraphOpen (
+			formatWriter);
+
+		if (
+			optionalIsPresent (
+				notesBeforeIndex)
+		) {
+
+			htmlLinkWrite (
+				formatWriter,
+				requestContext.resolveApplicationUrlFormat (
+					"/ticket.pending",
+					"/%u",
+					integerToDecimalString (
+						ticket.getId ()),
+					"/ticket.pending.history"),
+				"Newest notes");
+
 		}
 
+		if (moreNotes) {
+
+			htmlLinkWrite (
+				formatWriter,
+				requestContext.resolveApplicationUrlFormat (
+					"/ticket.pending",
+					"/%u",
+					integerToDecimalString (
+						ticket.getId ()),
+					"/ticket.pending.history",
+					"?notes-before=%u",
+					integerToDecimalString (
+						Iterables.getLast (
+							ticketNotes
+						).getIndex ())),
+				"Load older notes");
+
+		}
+
+		htmlParagraphClose (
+			formatWriter);
+
 	}
 
 	void goStateSummary (
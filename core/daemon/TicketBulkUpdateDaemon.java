@@ -0,0 +1,489 @@
+package wbs.services.ticket.core.daemon;
+
+import static wbs.utils.collection.CollectionUtils.collectionSize;
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
+import static wbs.utils.string.StringUtils.keyEqualsDecimalInteger;
+import static wbs.utils.string.StringUtils.stringFormat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Iterables;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import org.joda.time.Instant;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.database.Database;
+import wbs.framework.database.OwnedTransaction;
+import wbs.framework.exception.ExceptionLogger;
+import wbs.framework.exception.GenericExceptionResolution;
+import wbs.framework.logging.LogContext;
+import wbs.framework.logging.OwnedTaskLogger;
+import wbs.framework.logging.TaskLogger;
+
+import wbs.platform.daemon.SleepingDaemonService;
+
+import wbs.services.ticket.core.logic.TicketLogic;
+import wbs.services.ticket.core.logic.TicketWakeupScheduler;
+import wbs.services.ticket.core.model.TicketBulkUpdateObjectHelper;
+import wbs.services.ticket.core.model.TicketBulkUpdateRec;
+import wbs.services.ticket.core.model.TicketObjectHelper;
+import wbs.services.ticket.core.model.TicketRec;
+import wbs.services.ticket.core.model.TicketStateRec;
+
+@Accessors (fluent = true)
+@SingletonComponent ("ticketBulkUpdateDaemon")
+public
+class TicketBulkUpdateDaemon
+	extends SleepingDaemonService {
+
+	// singleton dependencies
+
+	@SingletonDependency
+	Database database;
+
+	@SingletonDependency
+	ExceptionLogger exceptionLogger;
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@SingletonDependency
+	TicketBulkUpdateObjectHelper ticketBulkUpdateHelper;
+
+	@SingletonDependency
+	TicketObjectHelper ticketHelper;
+
+	@SingletonDependency
+	TicketLogic ticketLogic;
+
+	@SingletonDependency
+	TicketStateTimeDaemon ticketStateTimeDaemon;
+
+	@SingletonDependency
+	TicketWakeupScheduler ticketWakeupScheduler;
+
+	// properties
+
+	@Getter @Setter
+	Long chunkSize = 100l;
+
+	// details
+
+	@Override
+	protected
+	String friendlyName () {
+		return "Ticket bulk update";
+	}
+
+	@Override
+	protected
+	String backgroundProcessName () {
+		return "ticket-bulk-update.bulk-update";
+	}
+
+	// implementation
+
+	@Override
+	protected
+	void runOnce (
+			@NonNull TaskLogger parentTaskLogger) {
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"runOnce");
+
+		) {
+
+			List <Long> bulkUpdateIds =
+				getBulkUpdateIds (
+					taskLogger);
+
+			for (
+				Long bulkUpdateId
+					: bulkUpdateIds
+			) {
+
+				// progress is committed with each chunk, so after a crash or a
+				// restart we carry on from the last ticket id
+
+				while (! Thread.currentThread ().isInterrupted ()) {
+
+					if (
+						! doChunk (
+							taskLogger,
+							bulkUpdateId)
+					) {
+						break;
+					}
+
+				}
+
+			}
+
+		}
+
+	}
+
+	private
+	List <Long> getBulkUpdateIds (
+			@NonNull TaskLogger parentTaskLogger) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadOnly (
+					logContext,
+					parentTaskLogger,
+					"getBulkUpdateIds");
+
+		) {
+
+			return ticketBulkUpdateHelper.findIncompleteIds (
+				transaction);
+
+		}
+
+	}
+
+	private
+	boolean doChunk (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Long bulkUpdateId) {
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"doChunk");
+
+		) {
+
+			try {
+
+				return doChunkReal (
+					taskLogger,
+					bulkUpdateId,
+					chunkSize);
+
+			} catch (RuntimeException exception) {
+
+				exceptionLogger.logThrowable (
+					taskLogger,
+					"daemon",
+					stringFormat (
+						"Error processing ticket bulk update %s",
+						integerToDecimalString (
+							bulkUpdateId)),
+					exception,
+					optionalAbsent (),
+					GenericExceptionResolution.tryAgainLater);
+
+			}
+
+			// go through the failed chunk one ticket at a time, so a single bad
+			// ticket doesn't hold up the rest
+
+			for (
+				long index = 0;
+				index < chunkSize;
+				index ++
+			) {
+
+				try {
+
+					if (
+						! doChunkReal (
+							taskLogger,
+							bulkUpdateId,
+							1l)
+					) {
+						return false;
+					}
+
+				} catch (RuntimeException exception) {
+
+					exceptionLogger.logThrowable (
+						taskLogger,
+						"daemon",
+						stringFormat (
+							"Error processing ticket bulk update %s",
+							integerToDecimalString (
+								bulkUpdateId)),
+						exception,
+						optionalAbsent (),
+						GenericExceptionResolution.tryAgainLater);
+
+					skipTicket (
+						taskLogger,
+						bulkUpdateId);
+
+				}
+
+			}
+
+			return true;
+
+		}
+
+	}
+
+	private
+	boolean doChunkReal (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Long bulkUpdateId,
+			@NonNull Long maxTickets) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadWrite (
+					logContext,
+					parentTaskLogger,
+					"doChunkReal",
+					keyEqualsDecimalInteger (
+						"bulkUpdateId",
+						bulkUpdateId),
+					keyEqualsDecimalInteger (
+						"maxTickets",
+						maxTickets));
+
+		) {
+
+			TicketBulkUpdateRec bulkUpdate =
+				ticketBulkUpdateHelper.findRequired (
+					transaction,
+					bulkUpdateId);
+
+			if (bulkUpdate.getComplete ()) {
+				return false;
+			}
+
+			// a template without a state, or a delay its state won't accept,
+			// would fail every ticket, so give up straight away
+
+			TicketStateRec newTicketState =
+				bulkUpdate.getTicketTemplate ().getTicketState ();
+
+			if (
+				isNull (
+					newTicketState)
+			) {
+
+				transaction.warningFormat (
+					"Template for ticket bulk update %s has no state",
+					integerToDecimalString (
+						bulkUpdateId));
+
+				complete (
+					bulkUpdate);
+
+				transaction.commit ();
+
+				return false;
+
+			}
+
+			if (
+
+				bulkUpdate.getDelay () < newTicketState.getMinimum ()
+
+				|| bulkUpdate.getDelay () > newTicketState.getMaximum ()
+
+			) {
+
+				transaction.warningFormat (
+					"Delay for ticket bulk update %s is out of bounds",
+					integerToDecimalString (
+						bulkUpdateId));
+
+				complete (
+					bulkUpdate);
+
+				transaction.commit ();
+
+				return false;
+
+			}
+
+			// find the next chunk of tickets
+
+			List <Long> ticketIds =
+				ticketHelper.findTicketIdsInStateAfter (
+					transaction,
+					bulkUpdate.getSourceState (),
+					bulkUpdate.getLastTicketId (),
+					maxTickets);
+
+			if (ticketIds.isEmpty ()) {
+
+				complete (
+					bulkUpdate);
+
+				transaction.commit ();
+
+				return false;
+
+			}
+
+			// hold the state time daemon's partition locks, so it can't queue
+			// these tickets while we change them, taken in order so we never
+			// deadlock with another bulk update
+
+			ticketIds.stream ()
+
+				.map (
+					ticketId ->
+						ticketId % ticketStateTimeDaemon.numPartitions ())
+
+				.distinct ()
+
+				.sorted ()
+
+				.forEach (
+					partition ->
+						ticketHelper.lockStateTimePartition (
+							transaction,
+							partition));
+
+			// load them once we hold the locks, and leave any which have moved
+			// out of the source state since we found them
+
+			List <TicketRec> tickets =
+				ticketHelper.findTicketsByIds (
+					transaction,
+					ticketIds
+				).stream ()
+
+				.filter (
+					ticket ->
+						ticket.getTicketState ().getId ().equals (
+							bulkUpdate.getSourceState ().getId ()))
+
+				.collect (
+					Collectors.toList ());
+
+			for (
+				TicketRec ticket
+					: tickets
+			) {
+
+				ticketLogic.applyTemplate (
+					transaction,
+					ticket,
+					bulkUpdate.getTicketTemplate (),
+					bulkUpdate.getDelay (),
+					bulkUpdate.getUser ());
+
+			}
+
+			// record progress with the changes themselves
+
+			bulkUpdate
+
+				.setLastTicketId (
+					Iterables.getLast (
+						ticketIds))
+
+				.setNumProcessed (
+					bulkUpdate.getNumProcessed ()
+					+ collectionSize (
+						ticketIds));
+
+			transaction.commit ();
+
+			// wake up close to the new timestamps, rather than on the next scan
+
+			for (
+				TicketRec ticket
+					: tickets
+			) {
+
+				ticketWakeupScheduler.scheduleWakeup (
+					ticket.getId (),
+					ticket.getTimestamp ());
+
+			}
+
+			return true;
+
+		}
+
+	}
+
+	private
+	void skipTicket (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Long bulkUpdateId) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadWrite (
+					logContext,
+					parentTaskLogger,
+					"skipTicket",
+					keyEqualsDecimalInteger (
+						"bulkUpdateId",
+						bulkUpdateId));
+
+		) {
+
+			TicketBulkUpdateRec bulkUpdate =
+				ticketBulkUpdateHelper.findRequired (
+					transaction,
+					bulkUpdateId);
+
+			List <Long> ticketIds =
+				ticketHelper.findTicketIdsInStateAfter (
+					transaction,
+					bulkUpdate.getSourceState (),
+					bulkUpdate.getLastTicketId (),
+					1l);
+
+			if (ticketIds.isEmpty ()) {
+				return;
+			}
+
+			bulkUpdate
+
+				.setLastTicketId (
+					ticketIds.get (0))
+
+				.setNumFailed (
+					bulkUpdate.getNumFailed () + 1);
+
+			transaction.commit ();
+
+		}
+
+	}
+
+	private
+	void complete (
+			@NonNull TicketBulkUpdateRec bulkUpdate) {
+
+		bulkUpdate
+
+			.setComplete (
+				true)
+
+			.setCompleteTime (
+				Instant.now ());
+
+	}
+
+}
@@ -1,24 +1,49 @@
 package wbs.services.ticket.core.daemon;
 
-import static wbs.utils.collection.IterableUtils.iterableMapToList;
+import static wbs.utils.collection.CollectionUtils.collectionSize;
 import static wbs.utils.etc.LogicUtils.booleanEqual;
 import static wbs.utils.etc.Misc.disabled;
 import static wbs.utils.etc.NullUtils.isNotNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
 import static wbs.utils.etc.NumberUtils.notLessThanZero;
+import static wbs.utils.etc.NumberUtils.toJavaIntegerRequired;
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
 import static wbs.utils.string.StringUtils.keyEqualsDecimalInteger;
+import static wbs.utils.string.StringUtils.stringFormat;
 
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 
+import org.joda.time.Duration;
 import org.joda.time.Instant;
 
 import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.NormalLifecycleSetup;
+import wbs.framework.component.annotations.NormalLifecycleTeardown;
 import wbs.framework.component.annotations.SingletonComponent;
 import wbs.framework.component.annotations.SingletonDependency;
 import wbs.framework.database.Database;
 import wbs.framework.database.OwnedTransaction;
+import wbs.framework.database.Transaction;
 import wbs.framework.exception.ExceptionLogger;
+import wbs.framework.exception.GenericExceptionResolution;
 import wbs.framework.logging.LogContext;
 import wbs.framework.logging.OwnedTaskLogger;
 import wbs.framework.logging.TaskLogger;
@@ -32,9 +57,15 @@ import wbs.platform.text.model.TextObjectHelper;
 
 import wbs.utils.random.RandomLogic;
 
+import wbs.services.ticket.core.logic.TicketManagerConfig;
+import wbs.services.ticket.core.logic.TicketManagerConfigCache;
+import wbs.services.ticket.core.logic.TicketStateTimeStats;
+import wbs.services.ticket.core.logic.TicketWakeupScheduler;
+import wbs.services.ticket.core.model.TicketDueTime;
 import wbs.services.ticket.core.model.TicketObjectHelper;
 import wbs.services.ticket.core.model.TicketRec;
 
+@Accessors (fluent = true)
 @SingletonComponent ("ticketStateTimeDaemon")
 public
 class TicketStateTimeDaemon
@@ -66,9 +97,75 @@ class TicketStateTimeDaemon
 	@SingletonDependency
 	TextObjectHelper textHelper;
 
+	@SingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
 	@SingletonDependency
 	TicketObjectHelper ticketHelper;
 
+	@SingletonDependency
+	TicketStateTimeStats ticketStateTimeStats;
+
+	@SingletonDependency
+	TicketWakeupScheduler ticketWakeupScheduler;
+
+	// properties
+
+	@Getter @Setter
+	Long pageSize = 1000l;
+
+	@Getter @Setter
+	Long batchSize = 100l;
+
+	@Getter @Setter
+	Long numPartitions = 16l;
+
+	@Getter @Setter
+	Long numThreads = 4l;
+
+	@Getter @Setter
+	Long wakeupHorizonSeconds = 300l;
+
+	@Getter @Setter
+	Long maxWakeups = 10000l;
+
+	// state
+
+	ExecutorService executor;
+	ScheduledExecutorService wakeupExecutor;
+
+	// life cycle
+
+	@NormalLifecycleSetup
+	public
+	void setupExecutor () {
+
+		executor =
+			Executors.newFixedThreadPool (
+				toJavaIntegerRequired (
+					numThreads));
+
+		wakeupExecutor =
+			Executors.newSingleThreadScheduledExecutor ();
+
+		wakeupExecutor.scheduleWithFixedDelay (
+			this::doWakeups,
+			TicketWakeupScheduler.tickMillis,
+			TicketWakeupScheduler.tickMillis,
+			TimeUnit.MILLISECONDS);
+
+	}
+
+	@NormalLifecycleTeardown
+	public
+	void teardownExecutor () {
+
+		wakeupExecutor.shutdownNow ();
+
+		executor.shutdownNow ();
+
+	}
+
 	// details
 
 	@Override
@@ -105,18 +202,344 @@ class TicketStateTimeDaemon
 				return;
 			}
 
-			taskLogger.debugFormat (
-				"Getting all unqueued tickets");
+			// work each partition in parallel, stopping if we are interrupted
 
-			List <Long> ticketIds =
-				getTicketIds (
+			Instant now =
+				Instant.now ();
+
+			AtomicBoolean stopRequested =
+				new AtomicBoolean ();
+
+			List <Future <?>> futures =
+				new ArrayList<> ();
+
+			for (
+				long partition = 0;
+				partition < numPartitions;
+				partition ++
+			) {
+
+				long partitionFinal =
+					partition;
+
+				futures.add (
+					executor.submit (
+						() ->
+							doPartition (
+								partitionFinal,
+								now,
+								stopRequested)));
+
+			}
+
+			for (
+				Future <?> future
+					: futures
+			) {
+
+				try {
+
+					future.get ();
+
+				} catch (InterruptedException interruptedException) {
+
+					// ask the partitions to stop after their current batch, and
+					// wait for them, so none is left running after we return
+
+					stopRequested.set (
+						true);
+
+					futures.forEach (
+						futureToWaitFor -> {
+
+						try {
+
+							Uninterruptibles.getUninterruptibly (
+								futureToWaitFor);
+
+						} catch (ExecutionException executionException) {
+
+							exceptionLogger.logThrowable (
+								taskLogger,
+								"daemon",
+								"Error processing ticket state time partition",
+								executionException.getCause (),
+								optionalAbsent (),
+								GenericExceptionResolution.tryAgainLater);
+
+						}
+
+					});
+
+					Thread.currentThread ().interrupt ();
+
+					return;
+
+				} catch (ExecutionException executionException) {
+
+					exceptionLogger.logThrowable (
+						taskLogger,
+						"daemon",
+						"Error processing ticket state time partition",
+						executionException.getCause (),
+						optionalAbsent (),
+						GenericExceptionResolution.tryAgainLater);
+
+				}
+
+			}
+
+			// reconcile upcoming wake ups, which may have been set elsewhere
+
+			seedWakeups (
+				taskLogger,
+				now);
+
+			updateBacklog (
+				taskLogger,
+				now);
+
+			ticketStateTimeStats.recordTick (
+				new Duration (
+					now,
+					Instant.now ()));
+
+		}
+
+	}
+
+	private
+	void seedWakeups (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Instant now) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadOnly (
+					logContext,
+					parentTaskLogger,
+					"seedWakeups");
+
+		) {
+
+			List <TicketDueTime> ticketDueTimes =
+				ticketHelper.findUnqueuedTicketDueTimesBetween (
+					transaction,
+					now,
+					now.plus (
+						Duration.standardSeconds (
+							wakeupHorizonSeconds)),
+					maxWakeups);
+
+			ticketDueTimes.forEach (
+				ticketDueTime ->
+					ticketWakeupScheduler.scheduleWakeup (
+						ticketDueTime.ticketId (),
+						ticketDueTime.timestamp ()));
+
+		}
+
+	}
+
+	private
+	void updateBacklog (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Instant now) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadOnly (
+					logContext,
+					parentTaskLogger,
+					"updateBacklog");
+
+		) {
+
+			// anything still due here was left over by this tick
+
+			ticketStateTimeStats.recordBacklog (
+				ticketHelper.countUnqueuedTicketsDueBefore (
+					transaction,
+					now));
+
+		}
+
+	}
+
+	private
+	void doWakeups () {
+
+		// TODO disabled for now
+
+		if (disabled ()) {
+			return;
+		}
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.createTaskLogger (
+					"doWakeups");
+
+		) {
+
+			// the executor stops rescheduling us for good if anything escapes,
+			// so log it here and carry on with the next tick
+
+			try {
+
+				doWakeupsReal (
 					taskLogger);
 
-			ticketIds.forEach (
-				ticketId ->
-					doTicket (
+			} catch (RuntimeException exception) {
+
+				exceptionLogger.logThrowable (
+					taskLogger,
+					"daemon",
+					"Error processing ticket wake ups",
+					exception,
+					optionalAbsent (),
+					GenericExceptionResolution.tryAgainLater);
+
+			}
+
+		}
+
+	}
+
+	private
+	void doWakeupsReal (
+			@NonNull TaskLogger parentTaskLogger) {
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"doWakeupsReal");
+
+		) {
+
+			List <Long> ticketIds =
+				ticketWakeupScheduler.takeDueTicketIds (
+					Instant.now ());
+
+			if (ticketIds.isEmpty ()) {
+				return;
+			}
+
+			ticketStateTimeStats.recordScanned (
+				collectionSize (
+					ticketIds));
+
+			// queue them by partition, anything we miss here because the
+			// partition is busy is picked up by the next scan
+
+			Map <Long, List <Long>> ticketIdsByPartition =
+				ticketIds.stream ()
+
+				.collect (
+					Collectors.groupingBy (
+						ticketId ->
+							ticketId % numPartitions));
+
+			ticketIdsByPartition.forEach (
+				(partition, partitionTicketIds) -> {
+
+				for (
+					List <Long> batchTicketIds
+						: Lists.partition (
+							partitionTicketIds,
+							toJavaIntegerRequired (
+								batchSize))
+				) {
+
+					doBatch (
+						taskLogger,
+						partition,
+						batchTicketIds);
+
+				}
+
+			});
+
+		}
+
+	}
+
+	private
+	void doPartition (
+			@NonNull Long partition,
+			@NonNull Instant now,
+			@NonNull AtomicBoolean stopRequested) {
+
+		// each partition runs on its own thread, so it gets its own logger
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.createTaskLogger (
+					"doPartition");
+
+		) {
+
+			// page through due tickets in timestamp order
+
+			while (! stopRequested.get ()) {
+
+				taskLogger.debugFormat (
+					"Getting up to %s due tickets in partition %s",
+					integerToDecimalString (
+						pageSize),
+					integerToDecimalString (
+						partition));
+
+				List <Long> ticketIds =
+					getTicketIds (
 						taskLogger,
-						ticketId));
+						partition,
+						now);
+
+				ticketStateTimeStats.recordScanned (
+					collectionSize (
+						ticketIds));
+
+				long numQueued = 0;
+
+				for (
+					List <Long> batchTicketIds
+						: Lists.partition (
+							ticketIds,
+							toJavaIntegerRequired (
+								batchSize))
+				) {
+
+					if (stopRequested.get ()) {
+						return;
+					}
+
+					numQueued +=
+						doBatch (
+							taskLogger,
+							partition,
+							batchTicketIds);
+
+				}
+
+				// stop on a short page, or if nothing moved, which means the
+				// remaining due tickets can't be queued and would be returned
+				// again, or that another node holds this partition
+
+				if (
+					ticketIds.size () < pageSize
+					|| numQueued == 0
+				) {
+					break;
+				}
+
+			}
 
 		}
 
@@ -124,7 +547,9 @@ class TicketStateTimeDaemon
 
 	private
 	List <Long> getTicketIds (
-			@NonNull TaskLogger parentTaskLogger) {
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Long partition,
+			@NonNull Instant now) {
 
 		try (
 
@@ -136,19 +561,99 @@ class TicketStateTimeDaemon
 
 		) {
 
-			return iterableMapToList (
-				ticketHelper.findUnqueuedTickets (
-					transaction),
-				TicketRec::getId);
+			return ticketHelper.findUnqueuedTicketIdsDueBeforeInPartition (
+				transaction,
+				now,
+				partition,
+				numPartitions,
+				pageSize);
+
+		}
+
+	}
+
+	private
+	long doBatch (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Long partition,
+			@NonNull List <Long> ticketIds) {
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"doBatch");
+
+		) {
+
+			try {
+
+				return doBatchReal (
+					taskLogger,
+					partition,
+					ticketIds);
+
+			} catch (RuntimeException exception) {
+
+				ticketStateTimeStats.recordBatchFailure ();
+
+				// a single ticket has failed on its own, so log it and move on
+
+				if (ticketIds.size () == 1) {
+
+					exceptionLogger.logThrowable (
+						taskLogger,
+						"daemon",
+						stringFormat (
+							"Error queueing ticket %s",
+							integerToDecimalString (
+								ticketIds.get (0))),
+						exception,
+						optionalAbsent (),
+						GenericExceptionResolution.tryAgainLater);
+
+					return 0;
+
+				}
+
+				// split the batch so one bad ticket can't hold up the rest
+
+				int splitIndex =
+					ticketIds.size () / 2;
+
+				return (
+
+					doBatch (
+						taskLogger,
+						partition,
+						ticketIds.subList (
+							0,
+							splitIndex))
+
+					+ doBatch (
+						taskLogger,
+						partition,
+						ticketIds.subList (
+							splitIndex,
+							ticketIds.size ()))
+
+				);
+
+			}
 
 		}
 
 	}
 
 	private
-	void doTicket (
+	long doBatchReal (
 			@NonNull TaskLogger parentTaskLogger,
-			@NonNull Long ticketId) {
+			@NonNull Long partition,
+			@NonNull List <Long> ticketIds) {
+
+		Instant startTime =
+			Instant.now ();
 
 		try (
 
@@ -156,72 +661,194 @@ class TicketStateTimeDaemon
 				database.beginReadWrite (
 					logContext,
 					parentTaskLogger,
-					"doTicketTImeCheck",
+					"doBatch",
 					keyEqualsDecimalInteger (
-						"ticketId",
-						ticketId));
+						"numTickets",
+						collectionSize (
+							ticketIds)));
 
 		) {
 
-			TicketRec ticket =
-				ticketHelper.findRequired (
-					transaction,
-					ticketId);
-
-			// check if the ticket is already in a queue
+			// claim the partition, another node may be working it
 
 			if (
-				isNotNull (
-					ticket.getQueueItem ())
+				! ticketHelper.tryLockStateTimePartition (
+					transaction,
+					partition)
 			) {
-				return;
+
+				transaction.debugFormat (
+					"Partition %s is locked elsewhere",
+					integerToDecimalString (
+						partition));
+
+				return 0;
+
 			}
 
-			// check if the ticket is ready to be queued
+			List <TicketRec> tickets =
+				ticketHelper.findTicketsByIds (
+					transaction,
+					ticketIds);
 
-			Integer timeComparison =
-				Instant.now ().compareTo (
-					ticket.getTimestamp ());
+			long numDue =
+				tickets.stream ()
 
-			if (
+				.filter (
+					ticket ->
+						isDue (
+							ticket,
+							startTime))
 
-				notLessThanZero (
-					timeComparison)
+				.count ();
 
-				&& booleanEqual (
-					ticket.getTicketState ().getShowInQueue (),
-					true)
+			List <TicketRec> queuedTickets =
+				tickets.stream ()
 
-			) {
+				.filter (
+					ticket ->
+						doTicket (
+							transaction,
+							ticket,
+							startTime))
+
+				.collect (
+					Collectors.toList ());
 
-				// create queue item
+			transaction.commit ();
 
-				QueueItemRec queueItem =
-					queueLogic.createQueueItem (
-						transaction,
-						ticket.getTicketState (),
-						"default",
-						ticket,
-						ticket,
-						ticket.getCode (),
-						ticket.getTicketState().toString());
+			Instant endTime =
+				Instant.now ();
+
+			Duration duration =
+				new Duration (
+					startTime,
+					endTime);
+
+			long numQueued =
+				collectionSize (
+					queuedTickets);
+
+			ticketStateTimeStats.recordBatch (
+				collectionSize (
+					ticketIds),
+				duration);
+
+			ticketStateTimeStats.recordChecked (
+				numDue,
+				numQueued,
+				collectionSize (
+					ticketIds)
+				- numQueued);
+
+			queuedTickets.forEach (
+				ticket ->
+					ticketStateTimeStats.recordQueueLag (
+						new Duration (
+							ticket.getTimestamp (),
+							endTime)));
+
+			transaction.debugFormat (
+				"Queued %s of %s tickets in %sms",
+				integerToDecimalString (
+					numQueued),
+				integerToDecimalString (
+					collectionSize (
+						ticketIds)),
+				integerToDecimalString (
+					duration.getMillis ()));
+
+			return numQueued;
 
-				// add queue item to ticket
+		}
 
-				ticket
+	}
 
-					.setQueueItem (
-						queueItem);
+	private
+	boolean isDue (
+			@NonNull TicketRec ticket,
+			@NonNull Instant now) {
 
-				ticket.setQueued (
-					true);
+		// check if the ticket is already in a queue, another node may have
+		// queued it since we fetched the ids
 
-			}
+		if (
 
-			transaction.commit ();
+			ticket.getQueued ()
 
+			|| isNotNull (
+				ticket.getQueueItem ())
+
+		) {
+			return false;
 		}
 
+		// check if the ticket's time has come
+
+		Integer timeComparison =
+			now.compareTo (
+				ticket.getTimestamp ());
+
+		return notLessThanZero (
+			timeComparison);
+
+	}
+
+	private
+	boolean doTicket (
+			@NonNull Transaction transaction,
+			@NonNull TicketRec ticket,
+			@NonNull Instant now) {
+
+		// check if the ticket is ready to be queued
+
+		if (
+			! isDue (
+				ticket,
+				now)
+		) {
+			return false;
+		}
+
+		TicketManagerConfig ticketManagerConfig =
+			ticketManagerConfigCache.config (
+				transaction,
+				ticket.getTicketManager ());
+
+		if (
+			! booleanEqual (
+				ticketManagerConfig.stateRequired (
+					ticket.getTicketState ().getId ()
+				).showInQueue (),
+				true)
+		) {
+			return false;
+		}
+
+		// create queue item
+
+		QueueItemRec queueItem =
+			queueLogic.createQueueItem (
+				transaction,
+				ticket.getTicketState (),
+				"default",
+				ticket,
+				ticket,
+				ticket.getCode (),
+				ticket.getTicketState().toString());
+
+		// add queue item to ticket
+
+		ticket
+
+			.setQueueItem (
+				queueItem);
+
+		ticket.setQueued (
+			true);
+
+		return true;
+
 	}
 
 }
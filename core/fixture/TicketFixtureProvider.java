@@ -20,8 +20,7 @@ import wbs.platform.menu.model.MenuItemObjectHelper;
 import wbs.platform.object.core.model.ObjectTypeObjectHelper;
 import wbs.platform.scaffold.model.SliceObjectHelper;
 
-import wbs.utils.random.RandomLogic;
-
+import wbs.services.ticket.core.logic.TicketCodeAllocator;
 import wbs.services.ticket.core.model.TicketFieldTypeObjectHelper;
 import wbs.services.ticket.core.model.TicketFieldValueObjectHelper;
 import wbs.services.ticket.core.model.TicketManagerObjectHelper;
@@ -50,6 +49,9 @@ class TicketFixtureProvider
 	@SingletonDependency
 	MenuItemObjectHelper menuHelper;
 
+	@SingletonDependency
+	TicketCodeAllocator ticketCodeAllocator;
+
 	@SingletonDependency
 	TicketManagerObjectHelper ticketManagerHelper;
 
@@ -77,9 +79,6 @@ class TicketFixtureProvider
 	@SingletonDependency
 	ObjectManager objectManager;
 
-	@SingletonDependency
-	RandomLogic randomLogic;
-
 	@SingletonDependency
 	SliceObjectHelper sliceHelper;
 
@@ -372,7 +371,9 @@ class TicketFixtureProvider
 					ticketManager)
 
 				.setCode (
-					randomLogic.generateNumericNoZero (8))
+					ticketCodeAllocator.allocateCode (
+						transaction,
+						ticketManager))
 
 				.setTicketState (
 					submittedState)
@@ -567,18 +568,11 @@ class TicketFixtureProvider
 				.setTicket (
 					ticket)
 
-				.setIndex (
-					ticket.getNumNotes ())
-
 				.setNoteText (
 					"Ticket note 1 text")
 
 			);
 
-			ticket
-				.setNumNotes (
-					ticket.getNumNotes () + 1);
-
 			ticketNoteHelper.insert (
 				transaction,
 				ticketNoteHelper.createInstance ()
@@ -586,19 +580,11 @@ class TicketFixtureProvider
 				.setTicket (
 					ticket)
 
-				.setIndex (
-					ticket.getNumNotes ())
-
 				.setNoteText (
 					"Ticket note 2 text")
 
 			);
 
-			ticket
-
-				.setNumNotes (
-					ticket.getNumNotes () + 1);
-
 			// ticket template
 
 			for (
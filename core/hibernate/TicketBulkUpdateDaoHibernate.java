@@ -0,0 +1,75 @@
+package wbs.services.ticket.core.hibernate;
+
+import java.util.List;
+
+import lombok.NonNull;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.hibernate.HibernateDaoLegacy;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.model.TicketBulkUpdateDao;
+import wbs.services.ticket.core.model.TicketBulkUpdateRec;
+
+@SingletonComponent ("ticketBulkUpdateDaoHibernate")
+public
+class TicketBulkUpdateDaoHibernate
+	extends HibernateDaoLegacy
+	implements TicketBulkUpdateDao {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	// implementation
+
+	@Override
+	public
+	List <Long> findIncompleteIds (
+			@NonNull Transaction parentTransaction) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findIncompleteIds");
+
+		) {
+
+			return findMany (
+				transaction,
+				Long.class,
+
+				createCriteria (
+					transaction,
+					TicketBulkUpdateRec.class,
+					"_ticketBulkUpdate")
+
+				.add (
+					Restrictions.eq (
+						"_ticketBulkUpdate.complete",
+						false))
+
+				.addOrder (
+					Order.asc (
+						"_ticketBulkUpdate.id"))
+
+				.setProjection (
+					Projections.id ())
+
+			);
+
+		}
+
+	}
+
+}
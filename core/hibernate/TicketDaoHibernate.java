@@ -1,22 +1,41 @@
 package wbs.services.ticket.core.hibernate;
 
+import static wbs.utils.collection.IterableUtils.iterableMapToList;
+import static wbs.utils.etc.NumberUtils.toJavaIntegerRequired;
+
+import java.util.Collection;
 import java.util.List;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
 import lombok.NonNull;
 
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.LockOptions;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
+import org.joda.time.Instant;
 
 import wbs.framework.component.annotations.ClassSingletonDependency;
 import wbs.framework.component.annotations.SingletonComponent;
 import wbs.framework.database.NestedTransaction;
 import wbs.framework.database.Transaction;
+import wbs.framework.entity.record.Record;
 import wbs.framework.hibernate.HibernateDaoLegacy;
 import wbs.framework.logging.LogContext;
 
 import wbs.services.ticket.core.model.TicketDao;
+import wbs.services.ticket.core.model.TicketDueTime;
 import wbs.services.ticket.core.model.TicketFieldTypeRec;
 import wbs.services.ticket.core.model.TicketFieldValueRec;
+import wbs.services.ticket.core.model.TicketManagerRec;
 import wbs.services.ticket.core.model.TicketRec;
+import wbs.services.ticket.core.model.TicketStateRec;
 
 @SingletonComponent ("ticketDaoHibernate")
 public
@@ -29,6 +48,11 @@ class TicketDaoHibernate
 	@ClassSingletonDependency
 	LogContext logContext;
 
+	// constants
+
+	private final static
+	int stateTimeLockClass = 0x7469636b;
+
 	// implementation
 
 	@Override
@@ -74,36 +98,823 @@ class TicketDaoHibernate
 
 	@Override
 	public
-	List <TicketRec> findUnqueuedTickets (
-			@NonNull Transaction parentTransaction) {
+	List <TicketRec> findTicketsByFieldValue (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull TicketFieldTypeRec ticketFieldType,
+			@NonNull Object value,
+			@NonNull Long maxResults) {
 
 		try (
 
 			NestedTransaction transaction =
 				parentTransaction.nestTransaction (
 					logContext,
-					"findUnqueuedTickets");
+					"findTicketsByFieldValue");
+
+		) {
+
+			Criteria criteria =
+				createCriteria (
+					transaction,
+					TicketFieldValueRec.class,
+					"_ticketFieldValue")
+
+				.createAlias (
+					"_ticketFieldValue.ticket",
+					"_ticket")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.ticketManager",
+						ticketManager))
+
+				.add (
+					Restrictions.eq (
+						"_ticketFieldValue.ticketFieldType",
+						ticketFieldType));
+
+			switch (ticketFieldType.getDataType ()) {
+
+			case string:
+
+				criteria.add (
+					Restrictions.eq (
+						"_ticketFieldValue.stringValue",
+						(String) value));
+
+				break;
+
+			case number:
+
+				criteria.add (
+					Restrictions.eq (
+						"_ticketFieldValue.integerValue",
+						(Long) value));
+
+				break;
+
+			case bool:
+
+				criteria.add (
+					Restrictions.eq (
+						"_ticketFieldValue.booleanValue",
+						(Boolean) value));
+
+				break;
+
+			case object:
+
+				criteria.add (
+					Restrictions.eq (
+						"_ticketFieldValue.integerValue",
+						value instanceof Record
+							? ((Record <?>) value).getId ()
+							: (Long) value));
+
+				break;
+
+			default:
+
+				throw new RuntimeException ();
+
+			}
+
+			// project ids then load the tickets together, projecting the
+			// association would load each ticket with its own select
+
+			List <Long> ticketIds =
+				findMany (
+					transaction,
+					Long.class,
+
+					criteria
+
+					.addOrder (
+						Order.desc (
+							"_ticket.id"))
+
+					.setProjection (
+						Projections.property (
+							"_ticket.id"))
+
+					.setMaxResults (
+						toJavaIntegerRequired (
+							maxResults))
+
+				);
+
+			if (ticketIds.isEmpty ()) {
+				return ImmutableList.of ();
+			}
+
+			// loaded in ascending id order, so reverse to keep newest first
+
+			return Lists.reverse (
+				findTicketsByIds (
+					transaction,
+					ticketIds));
+
+		}
+
+	}
+
+	@Override
+	public
+	List <TicketFieldValueRec> findTicketFieldValues (
+			@NonNull Transaction parentTransaction,
+			@NonNull List <TicketRec> tickets,
+			@NonNull List <Long> ticketFieldTypeIds) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketFieldValues");
 
 		) {
 
 			return findMany (
 				transaction,
-				TicketRec.class,
+				TicketFieldValueRec.class,
+
+				createCriteria (
+					transaction,
+					TicketFieldValueRec.class,
+					"_ticketFieldValue")
+
+				.add (
+					Restrictions.in (
+						"_ticketFieldValue.ticket",
+						tickets))
+
+				.add (
+					Restrictions.in (
+						"_ticketFieldValue.ticketFieldType.id",
+						ticketFieldTypeIds))
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	Long countUnqueuedTicketsDueBefore (
+			@NonNull Transaction parentTransaction,
+			@NonNull Instant dueBefore) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"countUnqueuedTicketsDueBefore");
+
+		) {
+
+			return findOneOrNull (
+				transaction,
+				Long.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.createAlias (
+					"_ticket.ticketState",
+					"_ticketState")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.queued",
+						false))
+
+				.add (
+					Restrictions.le (
+						"_ticket.timestamp",
+						dueBefore))
+
+				.add (
+					Restrictions.isNull (
+						"_ticket.queueItem"))
+
+				.add (
+					Restrictions.eq (
+						"_ticketState.showInQueue",
+						true))
+
+				.setProjection (
+					Projections.rowCount ())
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	Long countUnqueuedTicketsDueBefore (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull Instant dueBefore) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"countUnqueuedTicketsDueBefore");
+
+		) {
+
+			return findOneOrNull (
+				transaction,
+				Long.class,
 
 				createCriteria (
 					transaction,
 					TicketRec.class,
 					"_ticket")
 
+				.createAlias (
+					"_ticket.ticketState",
+					"_ticketState")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.ticketManager",
+						ticketManager))
+
 				.add (
 					Restrictions.eq (
 						"_ticket.queued",
 						false))
 
+				.add (
+					Restrictions.le (
+						"_ticket.timestamp",
+						dueBefore))
+
+				.add (
+					Restrictions.isNull (
+						"_ticket.queueItem"))
+
+				.add (
+					Restrictions.eq (
+						"_ticketState.showInQueue",
+						true))
+
+				.setProjection (
+					Projections.rowCount ())
+
 			);
 
 		}
 
 	}
 
+	@Override
+	public
+	List <Long> findUnqueuedTicketIdsDueBeforeInPartition (
+			@NonNull Transaction parentTransaction,
+			@NonNull Instant dueBefore,
+			@NonNull Long partition,
+			@NonNull Long numPartitions,
+			@NonNull Long maxResults) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findUnqueuedTicketIdsDueBeforeInPartition");
+
+		) {
+
+			return findMany (
+				transaction,
+				Long.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.createAlias (
+					"_ticket.ticketState",
+					"_ticketState")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.queued",
+						false))
+
+				.add (
+					Restrictions.le (
+						"_ticket.timestamp",
+						dueBefore))
+
+				.add (
+					Restrictions.isNull (
+						"_ticket.queueItem"))
+
+				.add (
+					Restrictions.eq (
+						"_ticketState.showInQueue",
+						true))
+
+				.add (
+					Restrictions.sqlRestriction (
+						"mod ({alias}.id, ?) = ?",
+						new Object [] {
+							numPartitions,
+							partition,
+						},
+						new Type [] {
+							LongType.INSTANCE,
+							LongType.INSTANCE,
+						}))
+
+				.addOrder (
+					Order.asc (
+						"_ticket.timestamp"))
+
+				.addOrder (
+					Order.asc (
+						"_ticket.id"))
+
+				.setProjection (
+					Projections.id ())
+
+				.setMaxResults (
+					toJavaIntegerRequired (
+						maxResults))
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	List <TicketDueTime> findUnqueuedTicketDueTimesBetween (
+			@NonNull Transaction parentTransaction,
+			@NonNull Instant dueAfter,
+			@NonNull Instant dueBefore,
+			@NonNull Long maxResults) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findUnqueuedTicketDueTimesBetween");
+
+		) {
+
+			List <Object[]> rows =
+				findMany (
+					transaction,
+					Object[].class,
+
+					createCriteria (
+						transaction,
+						TicketRec.class,
+						"_ticket")
+
+					.add (
+						Restrictions.eq (
+							"_ticket.queued",
+							false))
+
+					.add (
+						Restrictions.isNull (
+							"_ticket.queueItem"))
+
+					.add (
+						Restrictions.gt (
+							"_ticket.timestamp",
+							dueAfter))
+
+					.add (
+						Restrictions.le (
+							"_ticket.timestamp",
+							dueBefore))
+
+					.addOrder (
+						Order.asc (
+							"_ticket.timestamp"))
+
+					.setProjection (
+						Projections.projectionList ()
+
+						.add (
+							Projections.id ())
+
+						.add (
+							Projections.property (
+								"_ticket.timestamp"))
+
+						.add (
+							Projections.property (
+								"_ticket.ticketState.id")))
+
+					.setMaxResults (
+						toJavaIntegerRequired (
+							maxResults))
+
+				);
+
+			return iterableMapToList (
+				rows,
+				this::dueTimeFromRow);
+
+		}
+
+	}
+
+	@Override
+	public
+	Boolean tryLockStateTimePartition (
+			@NonNull Transaction parentTransaction,
+			@NonNull Long partition) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"tryLockStateTimePartition");
+
+		) {
+
+			// transaction scoped advisory lock, released on commit
+
+			return (Boolean)
+				transaction.hibernateSession ()
+
+				.createSQLQuery (
+					"SELECT pg_try_advisory_xact_lock (:lockClass, :partition)")
+
+				.setInteger (
+					"lockClass",
+					stateTimeLockClass)
+
+				.setInteger (
+					"partition",
+					toJavaIntegerRequired (
+						partition))
+
+				.uniqueResult ();
+
+		}
+
+	}
+
+	@Override
+	public
+	void lockStateTimePartition (
+			@NonNull Transaction parentTransaction,
+			@NonNull Long partition) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"lockStateTimePartition");
+
+		) {
+
+			// as above, but waits for the state time daemon to finish with it
+
+			transaction.hibernateSession ()
+
+				.createSQLQuery (
+					"SELECT pg_advisory_xact_lock (:lockClass, :partition)")
+
+				.setInteger (
+					"lockClass",
+					stateTimeLockClass)
+
+				.setInteger (
+					"partition",
+					toJavaIntegerRequired (
+						partition))
+
+				.uniqueResult ();
+
+		}
+
+	}
+
+	@Override
+	public
+	List <TicketRec> findTicketsByIds (
+			@NonNull Transaction parentTransaction,
+			@NonNull List <Long> ticketIds) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketsByIds");
+
+		) {
+
+			return findMany (
+				transaction,
+				TicketRec.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.add (
+					Restrictions.in (
+						"_ticket.id",
+						ticketIds))
+
+				.addOrder (
+					Order.asc (
+						"_ticket.id"))
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	void lockTicket (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"lockTicket");
+
+		) {
+
+			transaction.hibernateSession ()
+
+				.buildLockRequest (
+					LockOptions.UPGRADE)
+
+				.lock (
+					ticket);
+
+		}
+
+	}
+
+	@Override
+	public
+	TicketRec findTicketForPending (
+			@NonNull Transaction parentTransaction,
+			@NonNull Long ticketId) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketForPending");
+
+		) {
+
+			// fetch everything the pending pages touch up front, templates and
+			// states come from the manager config snapshot instead
+
+			return findOneOrNull (
+				transaction,
+				TicketRec.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.id",
+						ticketId))
+
+				.setFetchMode (
+					"_ticket.ticketState",
+					FetchMode.JOIN)
+
+				.setFetchMode (
+					"_ticket.ticketManager",
+					FetchMode.JOIN)
+
+				.setFetchMode (
+					"_ticket.queueItem",
+					FetchMode.JOIN)
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	List <Long> findTicketIdsInStateAfter (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketStateRec ticketState,
+			@NonNull Long afterTicketId,
+			@NonNull Long maxResults) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketIdsInStateAfter");
+
+		) {
+
+			return findMany (
+				transaction,
+				Long.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.ticketState",
+						ticketState))
+
+				.add (
+					Restrictions.gt (
+						"_ticket.id",
+						afterTicketId))
+
+				.addOrder (
+					Order.asc (
+						"_ticket.id"))
+
+				.setMaxResults (
+					toJavaIntegerRequired (
+						maxResults))
+
+				.setProjection (
+					Projections.id ())
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	Long nextTicketCodeBlock (
+			@NonNull Transaction parentTransaction) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"nextTicketCodeBlock");
+
+		) {
+
+			return (
+				(Number)
+				transaction.hibernateSession ()
+
+				.createSQLQuery (
+					"SELECT nextval ('ticket_code_block')")
+
+				.uniqueResult ()
+
+			).longValue ();
+
+		}
+
+	}
+
+	@Override
+	public
+	TicketRec findTicketByCode (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull String code) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketByCode");
+
+		) {
+
+			return findOneOrNull (
+				transaction,
+				TicketRec.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.ticketManager",
+						ticketManager))
+
+				.add (
+					Restrictions.eq (
+						"_ticket.code",
+						code))
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	List <String> findTicketCodesIn (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull Collection <String> codes) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketCodesIn");
+
+		) {
+
+			return findMany (
+				transaction,
+				String.class,
+
+				createCriteria (
+					transaction,
+					TicketRec.class,
+					"_ticket")
+
+				.add (
+					Restrictions.eq (
+						"_ticket.ticketManager",
+						ticketManager))
+
+				.add (
+					Restrictions.in (
+						"_ticket.code",
+						codes))
+
+				.setProjection (
+					Projections.property (
+						"_ticket.code"))
+
+			);
+
+		}
+
+	}
+
+	// private implementation
+
+	private
+	TicketDueTime dueTimeFromRow (
+			@NonNull Object[] row) {
+
+		return new TicketDueTime ()
+
+			.ticketId (
+				(Long) row [0])
+
+			.timestamp (
+				(Instant) row [1])
+
+			.ticketStateId (
+				(Long) row [2]);
+
+	}
+
 }
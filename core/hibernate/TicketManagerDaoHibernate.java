@@ -0,0 +1,262 @@
+package wbs.services.ticket.core.hibernate;
+
+import static wbs.utils.etc.NullUtils.isNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.transaction.Synchronization;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.NonNull;
+
+import org.hibernate.Session;
+import org.hibernate.criterion.Projections;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.hibernate.HibernateDaoLegacy;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.model.TicketManagerDao;
+import wbs.services.ticket.core.model.TicketManagerRec;
+
+@SingletonComponent ("ticketManagerDaoHibernate")
+public
+class TicketManagerDaoHibernate
+	extends HibernateDaoLegacy
+	implements TicketManagerDao {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	// constants
+
+	// the manager properties copied into the config snapshot
+
+	private final static
+	List <String> configPropertyNames =
+		ImmutableList.of (
+			"fieldStorage",
+			"deferQueueItems");
+
+	// state
+
+	private final
+	Map <org.hibernate.Transaction, Set <Long>> pendingIncrements =
+		new ConcurrentHashMap<> ();
+
+	// implementation
+
+	@Override
+	public
+	Map <Long, Long> findConfigVersions (
+			@NonNull Transaction parentTransaction) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findConfigVersions");
+
+		) {
+
+			List <Object[]> rows =
+				findMany (
+					transaction,
+					Object[].class,
+
+					createCriteria (
+						transaction,
+						TicketManagerRec.class,
+						"_ticketManager")
+
+					.setProjection (
+						Projections.projectionList ()
+
+						.add (
+							Projections.property (
+								"_ticketManager.id"))
+
+						.add (
+							Projections.property (
+								"_ticketManager.configVersion")))
+
+				);
+
+			ImmutableMap.Builder <Long, Long> builder =
+				ImmutableMap.builder ();
+
+			for (
+				Object[] row
+					: rows
+			) {
+
+				builder.put (
+					(Long) row [0],
+					(Long) row [1]);
+
+			}
+
+			return builder.build ();
+
+		}
+
+	}
+
+	@Override
+	public
+	void incrementConfigVersionOnCommit (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"incrementConfigVersionOnCommit");
+
+		) {
+
+			// this is called from hooks while the session flushes, so only note
+			// the manager here, and increment each one once, after the final
+			// flush, in the database so concurrent changes each get a version
+
+			Session session =
+				transaction.hibernateSession ();
+
+			org.hibernate.Transaction hibernateTransaction =
+				session.getTransaction ();
+
+			pendingIncrements.computeIfAbsent (
+				hibernateTransaction,
+				key -> {
+
+				hibernateTransaction.registerSynchronization (
+					new Synchronization () {
+
+					@Override
+					public
+					void beforeCompletion () {
+
+						Set <Long> ticketManagerIds =
+							pendingIncrements.get (
+								hibernateTransaction);
+
+						if (
+							isNull (
+								ticketManagerIds)
+						) {
+							return;
+						}
+
+						session
+
+							.createSQLQuery (
+								"UPDATE ticket_manager " +
+								"SET config_version = config_version + 1 " +
+								"WHERE id IN (:ticketManagerIds)")
+
+							.setParameterList (
+								"ticketManagerIds",
+								ticketManagerIds)
+
+							.executeUpdate ();
+
+					}
+
+					@Override
+					public
+					void afterCompletion (
+							int status) {
+
+						pendingIncrements.remove (
+							hibernateTransaction);
+
+					}
+
+				});
+
+				return ConcurrentHashMap.newKeySet ();
+
+			}).add (
+				ticketManager.getId ());
+
+		}
+
+	}
+
+	@Override
+	public
+	Boolean configFieldsChanged (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"configFieldsChanged");
+
+		) {
+
+			// compare against the state hibernate loaded, without a query
+
+			EntityEntry entityEntry =
+				(
+					(SessionImplementor)
+					transaction.hibernateSession ()
+				).getPersistenceContext ().getEntry (
+					ticketManager);
+
+			if (
+
+				isNull (
+					entityEntry)
+
+				|| isNull (
+					entityEntry.getLoadedState ())
+
+			) {
+				return true;
+			}
+
+			for (
+				String propertyName
+					: configPropertyNames
+			) {
+
+				if (
+					! Objects.equals (
+						entityEntry.getLoadedValue (
+							propertyName),
+						entityEntry.getPersister ().getPropertyValue (
+							ticketManager,
+							propertyName))
+				) {
+					return true;
+				}
+
+			}
+
+			return false;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+package wbs.services.ticket.core.hibernate;
+
+import static wbs.utils.etc.NumberUtils.toJavaIntegerRequired;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+
+import lombok.NonNull;
+
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.hibernate.HibernateDaoLegacy;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.model.TicketNoteDao;
+import wbs.services.ticket.core.model.TicketNoteRec;
+import wbs.services.ticket.core.model.TicketRec;
+
+@SingletonComponent ("ticketNoteDaoHibernate")
+public
+class TicketNoteDaoHibernate
+	extends HibernateDaoLegacy
+	implements TicketNoteDao {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	// implementation
+
+	@Override
+	public
+	List <TicketNoteRec> findTicketNotes (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull Optional <Long> beforeIndex,
+			@NonNull Long maxResults) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketNotes");
+
+		) {
+
+			Criteria criteria =
+				createCriteria (
+					transaction,
+					TicketNoteRec.class,
+					"_ticketNote")
+
+				.add (
+					Restrictions.eq (
+						"_ticketNote.ticket",
+						ticket));
+
+			if (
+				optionalIsPresent (
+					beforeIndex)
+			) {
+
+				criteria.add (
+					Restrictions.lt (
+						"_ticketNote.index",
+						beforeIndex.get ()));
+
+			}
+
+			criteria
+
+				.addOrder (
+					Order.desc (
+						"_ticketNote.index"))
+
+				.setMaxResults (
+					toJavaIntegerRequired (
+						maxResults));
+
+			return findMany (
+				transaction,
+				TicketNoteRec.class,
+				criteria);
+
+		}
+
+	}
+
+	@Override
+	public
+	Long findMaxIndex (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findMaxIndex");
+
+		) {
+
+			return findOneOrNull (
+				transaction,
+				Long.class,
+
+				createCriteria (
+					transaction,
+					TicketNoteRec.class,
+					"_ticketNote")
+
+				.add (
+					Restrictions.eq (
+						"_ticketNote.ticket",
+						ticket))
+
+				.setProjection (
+					Projections.max (
+						"_ticketNote.index"))
+
+			);
+
+		}
+
+	}
+
+}
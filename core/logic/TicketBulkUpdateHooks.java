@@ -0,0 +1,80 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.etc.NullUtils.isNull;
+
+import lombok.NonNull;
+
+import wbs.framework.database.Transaction;
+import wbs.framework.object.ObjectHooks;
+
+import wbs.services.ticket.core.model.TicketBulkUpdateRec;
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketTemplateRec;
+
+public
+class TicketBulkUpdateHooks
+	implements ObjectHooks <TicketBulkUpdateRec> {
+
+	// implementation
+
+	@Override
+	public
+	void beforeInsert (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketBulkUpdateRec bulkUpdate) {
+
+		TicketManagerRec ticketManager =
+			bulkUpdate.getTicketManager ();
+
+		TicketTemplateRec ticketTemplate =
+			bulkUpdate.getTicketTemplate ();
+
+		// a bulk update only moves tickets within its own manager
+
+		if (
+			! sameManager (
+				ticketManager,
+				bulkUpdate.getSourceState ().getTicketManager ())
+		) {
+
+			throw new IllegalArgumentException (
+				"Source state belongs to another ticket manager");
+
+		}
+
+		if (
+			! sameManager (
+				ticketManager,
+				ticketTemplate.getTicketManager ())
+		) {
+
+			throw new IllegalArgumentException (
+				"Template belongs to another ticket manager");
+
+		}
+
+		if (
+			isNull (
+				ticketTemplate.getTicketState ())
+		) {
+
+			throw new IllegalArgumentException (
+				"Template has no ticket state");
+
+		}
+
+	}
+
+	// private implementation
+
+	private
+	boolean sameManager (
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull TicketManagerRec otherTicketManager) {
+
+		return ticketManager.getId ().equals (
+			otherTicketManager.getId ());
+
+	}
+
+}
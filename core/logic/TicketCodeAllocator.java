@@ -0,0 +1,187 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketObjectHelper;
+
+@SingletonComponent ("ticketCodeAllocator")
+public
+class TicketCodeAllocator {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@WeakSingletonDependency
+	TicketObjectHelper ticketHelper;
+
+	// constants
+
+	public final static
+	int codeLength = 8;
+
+	public final static
+	long blockSize = 1000l;
+
+	// codes are eight digits from one to nine, so there are 9^8 of them
+
+	private final static
+	long codeSpace = 43046721l;
+
+	// coprime with the code space, so the mapping below is a permutation
+
+	private final static
+	long codeMultiplier = 28629151l;
+
+	private final static
+	long codeOffset = 17324869l;
+
+	// state
+
+	private
+	long nextSerial;
+
+	private
+	long endSerial;
+
+	private final
+	Map <Long, Set <String>> takenCodesByManager =
+		new HashMap<> ();
+
+	// implementation
+
+	public synchronized
+	String allocateCode (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"allocateCode");
+
+		) {
+
+			for (;;) {
+
+				// reserve another block, the sequence is not transactional so a
+				// block is never handed out twice, even if we roll back
+
+				if (nextSerial == endSerial) {
+
+					long block =
+						ticketHelper.nextTicketCodeBlock (
+							transaction);
+
+					nextSerial =
+						block * blockSize;
+
+					endSerial =
+						nextSerial + blockSize;
+
+					takenCodesByManager.clear ();
+
+				}
+
+				// our codes never repeat, but older ones were random and may take
+				// any code, so look up which of the block's codes are taken, once
+				// per manager, rather than checking every code we hand out
+
+				Set <String> takenCodes =
+					takenCodesByManager.computeIfAbsent (
+						ticketManager.getId (),
+						ticketManagerId ->
+							new HashSet<> (
+								ticketHelper.findTicketCodesIn (
+									transaction,
+									ticketManager,
+									remainingBlockCodes ())));
+
+				String code =
+					codeForSerial (
+						nextSerial ++);
+
+				if (! takenCodes.contains (code)) {
+					return code;
+				}
+
+			}
+
+		}
+
+	}
+
+	// private implementation
+
+	private
+	List <String> remainingBlockCodes () {
+
+		List <String> codes =
+			new ArrayList<> ();
+
+		for (
+			long serial = nextSerial;
+			serial < endSerial;
+			serial ++
+		) {
+
+			codes.add (
+				codeForSerial (
+					serial));
+
+		}
+
+		return codes;
+
+	}
+
+	private
+	String codeForSerial (
+			long serial) {
+
+		long value =
+			Math.floorMod (
+				Math.floorMod (serial, codeSpace) * codeMultiplier
+					+ codeOffset,
+				codeSpace);
+
+		char[] digits =
+			new char [codeLength];
+
+		for (
+			int index = codeLength - 1;
+			index >= 0;
+			index --
+		) {
+
+			digits [index] =
+				(char) ('1' + value % 9);
+
+			value /= 9;
+
+		}
+
+		return new String (
+			digits);
+
+	}
+
+}
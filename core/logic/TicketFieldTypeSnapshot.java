@@ -0,0 +1,19 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import wbs.services.ticket.core.model.TicketFieldDataType;
+
+@Accessors (fluent = true)
+@Value
+public
+class TicketFieldTypeSnapshot {
+
+	Long id;
+	String code;
+	TicketFieldDataType dataType;
+	Long objectTypeId;
+	Boolean searchable;
+
+}
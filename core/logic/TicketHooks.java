@@ -1,13 +1,14 @@
 package wbs.services.ticket.core.logic;
 
+import static wbs.utils.etc.NullUtils.isNull;
 import static wbs.utils.etc.OptionalUtils.optionalAbsent;
-import static wbs.utils.etc.OptionalUtils.optionalOrNull;
 
 import com.google.common.base.Optional;
 
 import lombok.NonNull;
 
 import org.hibernate.TransientObjectException;
+import org.joda.time.Instant;
 
 import wbs.framework.component.annotations.ClassSingletonDependency;
 import wbs.framework.component.annotations.SingletonDependency;
@@ -15,23 +16,14 @@ import wbs.framework.component.annotations.WeakSingletonDependency;
 import wbs.framework.database.Database;
 import wbs.framework.database.NestedTransaction;
 import wbs.framework.database.Transaction;
-import wbs.framework.entity.record.Record;
 import wbs.framework.logging.LogContext;
-import wbs.framework.object.ObjectHelper;
 import wbs.framework.object.ObjectHooks;
-import wbs.framework.object.ObjectManager;
 
-import wbs.platform.object.core.model.ObjectTypeRec;
 import wbs.platform.queue.logic.QueueLogic;
 import wbs.platform.queue.model.QueueItemRec;
 
 import wbs.utils.random.RandomLogic;
 
-import wbs.services.ticket.core.model.TicketFieldTypeObjectHelper;
-import wbs.services.ticket.core.model.TicketFieldTypeRec;
-import wbs.services.ticket.core.model.TicketFieldValueObjectHelper;
-import wbs.services.ticket.core.model.TicketFieldValueRec;
-import wbs.services.ticket.core.model.TicketObjectHelper;
 import wbs.services.ticket.core.model.TicketRec;
 
 public
@@ -46,9 +38,6 @@ class TicketHooks
 	@ClassSingletonDependency
 	LogContext logContext;
 
-	@WeakSingletonDependency
-	ObjectManager objectManager;
-
 	@WeakSingletonDependency
 	QueueLogic queueLogic;
 
@@ -56,16 +45,49 @@ class TicketHooks
 	RandomLogic randomLogic;
 
 	@WeakSingletonDependency
-	TicketFieldTypeObjectHelper ticketFieldTypeHelper;
+	TicketCodeAllocator ticketCodeAllocator;
 
 	@WeakSingletonDependency
-	TicketFieldValueObjectHelper ticketFieldValueHelper;
+	TicketLogic ticketLogic;
 
 	@WeakSingletonDependency
-	TicketObjectHelper ticketHelper;
+	TicketManagerConfigCache ticketManagerConfigCache;
 
 	// implementation
 
+	@Override
+	public
+	void beforeInsert (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"beforeInsert");
+
+		) {
+
+			if (
+				isNull (
+					ticket.getCode ())
+			) {
+
+				ticket
+
+					.setCode (
+						ticketCodeAllocator.allocateCode (
+							transaction,
+							ticket.getTicketManager ()));
+
+			}
+
+		}
+
+	}
+
 	@Override
 	public
 	void afterInsert (
@@ -83,7 +105,55 @@ class TicketHooks
 
 			// TODO does not belong here
 
-			if (ticket.getTicketState ().getShowInQueue ()) {
+			// tickets inserted unqueued, such as by an import, are queued by
+			// whoever inserted them
+
+			if (! ticket.getQueued ()) {
+				return;
+			}
+
+			TicketManagerConfig ticketManagerConfig =
+				ticketManagerConfigCache.config (
+					transaction,
+					ticket.getTicketManager ());
+
+			if (
+				! ticketManagerConfig.stateRequired (
+					ticket.getTicketState ().getId ()
+				).showInQueue ()
+			) {
+				return;
+			}
+
+			if (ticketManagerConfig.deferQueueItems ()) {
+
+				// leave the queue item to the state time daemon, which creates
+				// them in batches on its next scan, so the insert doesn't wait on
+				// the queues, the scan frequency of the state time background
+				// process bounds the delay
+
+				ticket
+
+					.setQueued (
+						false);
+
+				// the daemon only queues tickets once their timestamp has passed,
+				// so a ticket created without one is due straight away, while a
+				// timestamp set by the creator is left alone and respected
+
+				if (
+					isNull (
+						ticket.getTimestamp ())
+				) {
+
+					ticket
+
+						.setTimestamp (
+							Instant.now ());
+
+				}
+
+			} else {
 
 				// create queue item
 
@@ -126,62 +196,10 @@ class TicketHooks
 
 		) {
 
-			// find the ticket field type
-
-			TicketFieldTypeRec ticketFieldType =
-				ticketFieldTypeHelper.findByCodeRequired (
-					transaction,
-					ticket.getTicketManager (),
-					name);
-
-			// find the ticket field value
-
-			TicketFieldValueRec ticketFieldValue =
-				ticket.getTicketFieldValues ().get (
-					ticketFieldType.getId ());
-
-			if (ticketFieldValue == null) {
-				return null;
-			}
-
-			switch (ticketFieldType.getDataType ()) {
-
-			case string:
-
-				return ticketFieldValue.getStringValue ();
-
-			case number:
-
-				return ticketFieldValue.getIntegerValue ();
-
-			case bool:
-
-				return ticketFieldValue.getBooleanValue ();
-
-			case object:
-
-				ObjectTypeRec objectType =
-					ticketFieldType.getObjectType ();
-
-				Long objectId =
-					ticketFieldValue.getIntegerValue ();
-
-				ObjectHelper <?> objectHelper =
-					objectManager.objectHelperForTypeIdRequired (
-						objectType.getId ());
-
-				Object object =
-					objectHelper.findRequired (
-						transaction,
-						objectId);
-
-				return object;
-
-			default:
-
-				throw new RuntimeException ();
-
-			}
+			return ticketLogic.getDynamic (
+				transaction,
+				ticket,
+				name);
 
 		} catch (TransientObjectException exception) {
 
@@ -210,110 +228,16 @@ class TicketHooks
 
 		) {
 
-			// find the ticket field type
-
-			TicketFieldTypeRec ticketFieldType =
-				ticketFieldTypeHelper.findByCodeRequired (
-					transaction,
-					ticket.getTicketManager (),
-					name);
-
-			TicketFieldValueRec ticketFieldValue;
-
-			try {
-
-				 ticketFieldValue =
-					ticket.getTicketFieldValues ().get (
-						ticketFieldType.getId ());
-
-			} catch (Exception exception) {
-
-				ticketFieldValue =
-					null;
-
-			}
-
-			// if the value object does not exist, a new one is created
-
-			if (ticketFieldValue == null) {
-
-				ticketFieldValue =
-					ticketFieldValueHelper.createInstance ()
-
-					.setTicket (
-						ticket)
-
-					.setTicketFieldType (
-						ticketFieldType);
+			ticketLogic.setDynamic (
+				transaction,
+				ticket,
+				name,
+				valueOptional);
 
-			}
-
-			switch (ticketFieldType.getDataType ()) {
-
-			case string:
-
-				ticketFieldValue
-
-					.setStringValue (
-						(String)
-						optionalOrNull (
-							valueOptional));
-
-				break;
-
-			case number:
-
-				ticketFieldValue
-
-					.setIntegerValue (
-						(Long)
-						optionalOrNull (
-							valueOptional));
-
-				break;
-
-			case bool:
-
-				ticketFieldValue
-
-					.setBooleanValue (
-						(Boolean)
-						optionalOrNull (
-							valueOptional));
-
-				break;
-
-			case object:
-
-				Record<?> record =
-					(Record<?>)
-					optionalOrNull (
-						valueOptional);
-
-				ticketFieldValue.setIntegerValue (
-					record.getId ());
-
-				break;
-
-			default:
-
-				throw new RuntimeException ();
-
-			}
-
-			ticket
-
-				.setNumFields (
-					ticket.getNumFields () + 1);
-
-			ticket.getTicketFieldValues ().put (
-				ticketFieldType.getId (),
-				ticketFieldValue);
+			return optionalAbsent ();
 
 		}
 
-		return optionalAbsent ();
-
 	}
 
-}
\ No newline at end of file
+}
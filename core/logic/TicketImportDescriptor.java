@@ -0,0 +1,32 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import org.joda.time.Instant;
+
+@Accessors (fluent = true)
+@Data
+public
+class TicketImportDescriptor {
+
+	Long ticketManagerId;
+	String ticketStateCode;
+
+	String code;
+	Instant timestamp;
+
+	Map <String, Optional <?>> fields =
+		ImmutableMap.of ();
+
+	List <String> notes =
+		ImmutableList.of ();
+
+}
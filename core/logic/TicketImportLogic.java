@@ -0,0 +1,16 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import wbs.framework.logging.TaskLogger;
+
+public
+interface TicketImportLogic {
+
+	TicketImportResult importTickets (
+			TaskLogger parentTaskLogger,
+			Iterator <TicketImportDescriptor> descriptors,
+			Consumer <TicketImportResult> checkpoint);
+
+}
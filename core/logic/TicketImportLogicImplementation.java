@@ -0,0 +1,479 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.collection.CollectionUtils.collectionSize;
+import static wbs.utils.etc.NullUtils.ifNull;
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.string.StringUtils.keyEqualsDecimalInteger;
+import static wbs.utils.string.StringUtils.stringFormat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import org.joda.time.Instant;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.Database;
+import wbs.framework.database.OwnedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+import wbs.framework.logging.OwnedTaskLogger;
+import wbs.framework.logging.TaskLogger;
+
+import wbs.platform.queue.logic.QueueLogic;
+import wbs.platform.queue.model.QueueItemRec;
+
+import wbs.services.ticket.core.model.TicketManagerObjectHelper;
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketNoteObjectHelper;
+import wbs.services.ticket.core.model.TicketObjectHelper;
+import wbs.services.ticket.core.model.TicketRec;
+import wbs.services.ticket.core.model.TicketStateObjectHelper;
+
+@Accessors (fluent = true)
+@SingletonComponent ("ticketImportLogic")
+public
+class TicketImportLogicImplementation
+	implements TicketImportLogic {
+
+	// singleton dependencies
+
+	@SingletonDependency
+	Database database;
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@WeakSingletonDependency
+	QueueLogic queueLogic;
+
+	@SingletonDependency
+	TicketLogic ticketLogic;
+
+	@SingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	@SingletonDependency
+	TicketManagerObjectHelper ticketManagerHelper;
+
+	@SingletonDependency
+	TicketNoteObjectHelper ticketNoteHelper;
+
+	@SingletonDependency
+	TicketObjectHelper ticketHelper;
+
+	@SingletonDependency
+	TicketStateObjectHelper ticketStateHelper;
+
+	// properties
+
+	@Getter @Setter
+	Long chunkSize = 500l;
+
+	// implementation
+
+	@Override
+	public
+	TicketImportResult importTickets (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull Iterator <TicketImportDescriptor> descriptors,
+			@NonNull Consumer <TicketImportResult> checkpoint) {
+
+		try (
+
+			OwnedTaskLogger taskLogger =
+				logContext.nestTaskLogger (
+					parentTaskLogger,
+					"importTickets");
+
+		) {
+
+			TicketImportResult result =
+				new TicketImportResult ();
+
+			while (descriptors.hasNext ()) {
+
+				List <TicketImportDescriptor> chunkDescriptors =
+					new ArrayList<> ();
+
+				while (
+
+					descriptors.hasNext ()
+
+					&& chunkDescriptors.size () < chunkSize
+
+				) {
+
+					TicketImportDescriptor descriptor =
+						descriptors.next ();
+
+					// codes are what make a rerun skip the tickets it already
+					// imported, so a ticket without one can't be resumed safely
+
+					if (
+						isNull (
+							descriptor.code ())
+					) {
+
+						throw new IllegalArgumentException (
+							stringFormat (
+								"Ticket import descriptor %s has no code",
+								integerToDecimalString (
+									result.numProcessed ()
+									+ chunkDescriptors.size ())));
+
+					}
+
+					chunkDescriptors.add (
+						descriptor);
+
+				}
+
+				importChunk (
+					taskLogger,
+					chunkDescriptors,
+					result);
+
+				// the chunk is committed, so a restart can resume after it, and
+				// anything redone is skipped by its code
+
+				checkpoint.accept (
+					result);
+
+			}
+
+			return result;
+
+		}
+
+	}
+
+	private
+	void importChunk (
+			@NonNull TaskLogger parentTaskLogger,
+			@NonNull List <TicketImportDescriptor> descriptors,
+			@NonNull TicketImportResult result) {
+
+		try (
+
+			OwnedTransaction transaction =
+				database.beginReadWrite (
+					logContext,
+					parentTaskLogger,
+					"importChunk",
+					keyEqualsDecimalInteger (
+						"numTickets",
+						collectionSize (
+							descriptors)));
+
+		) {
+
+			Instant now =
+				Instant.now ();
+
+			// look up which codes are taken with one query per manager, rather
+			// than one per ticket, which would also flush the tickets inserted
+			// so far each time
+
+			Map <Long, Set <String>> takenCodesByManager =
+				findTakenCodes (
+					transaction,
+					descriptors);
+
+			// insert the tickets on their own first, then each kind of child
+			// row in turn, so hibernate can send every kind out in jdbc batches
+			// rather than interleaving them one ticket at a time
+
+			List <TicketImportDescriptor> importedDescriptors =
+				new ArrayList<> ();
+
+			List <TicketRec> importedTickets =
+				new ArrayList<> ();
+
+			long numSkipped = 0;
+
+			for (
+				TicketImportDescriptor descriptor
+					: descriptors
+			) {
+
+				TicketManagerRec ticketManager =
+					ticketManagerHelper.findRequired (
+						transaction,
+						descriptor.ticketManagerId ());
+
+				// also catches a code repeated within the chunk
+
+				if (
+					! takenCodesByManager.get (
+						ticketManager.getId ()
+					).add (
+						descriptor.code ())
+				) {
+
+					numSkipped ++;
+
+					continue;
+
+				}
+
+				TicketManagerConfig ticketManagerConfig =
+					ticketManagerConfigCache.config (
+						transaction,
+						ticketManager);
+
+				// inserted unqueued so the hooks leave queueing to us
+
+				TicketRec ticket =
+					ticketHelper.insert (
+						transaction,
+						ticketHelper.createInstance ()
+
+					.setTicketManager (
+						ticketManager)
+
+					.setCode (
+						descriptor.code ())
+
+					.setTicketState (
+						ticketStateHelper.findRequired (
+							transaction,
+							ticketManagerConfig.stateByCodeRequired (
+								descriptor.ticketStateCode ()
+							).id ()))
+
+					.setTimestamp (
+						ifNull (
+							descriptor.timestamp (),
+							now))
+
+					.setQueued (
+						false)
+
+					.setNumNotes (
+						collectionSize (
+							descriptor.notes ()))
+
+				);
+
+				importedDescriptors.add (
+					descriptor);
+
+				importedTickets.add (
+					ticket);
+
+			}
+
+			transaction.flush ();
+
+			// field values
+
+			for (
+				int index = 0;
+				index < importedTickets.size ();
+				index ++
+			) {
+
+				TicketImportDescriptor descriptor =
+					importedDescriptors.get (
+						index);
+
+				if (descriptor.fields ().isEmpty ()) {
+					continue;
+				}
+
+				ticketLogic.setDynamicAll (
+					transaction,
+					importedTickets.get (
+						index),
+					descriptor.fields ());
+
+			}
+
+			// notes, the tickets are new so the indexes start from zero
+
+			for (
+				int index = 0;
+				index < importedTickets.size ();
+				index ++
+			) {
+
+				TicketRec ticket =
+					importedTickets.get (
+						index);
+
+				List <String> notes =
+					importedDescriptors.get (
+						index
+					).notes ();
+
+				for (
+					int noteIndex = 0;
+					noteIndex < notes.size ();
+					noteIndex ++
+				) {
+
+					ticketNoteHelper.insert (
+						transaction,
+						ticketNoteHelper.createInstance ()
+
+						.setTicket (
+							ticket)
+
+						.setIndex (
+							(long) noteIndex)
+
+						.setNoteText (
+							notes.get (
+								noteIndex))
+
+					);
+
+				}
+
+			}
+
+			// queue items, as the insert hook would have created them
+
+			for (
+				TicketRec ticket
+					: importedTickets
+			) {
+
+				queueTicket (
+					transaction,
+					ticket);
+
+			}
+
+			transaction.commit ();
+
+			result
+
+				.numProcessed (
+					result.numProcessed ()
+					+ collectionSize (
+						descriptors))
+
+				.numImported (
+					result.numImported ()
+					+ collectionSize (
+						importedTickets))
+
+				.numSkipped (
+					result.numSkipped ()
+					+ numSkipped);
+
+		}
+
+	}
+
+	private
+	Map <Long, Set <String>> findTakenCodes (
+			@NonNull Transaction transaction,
+			@NonNull List <TicketImportDescriptor> descriptors) {
+
+		Map <Long, Set <String>> codesByManager =
+			new HashMap<> ();
+
+		for (
+			TicketImportDescriptor descriptor
+				: descriptors
+		) {
+
+			codesByManager.computeIfAbsent (
+				descriptor.ticketManagerId (),
+				ticketManagerId ->
+					new HashSet<> ()
+			).add (
+				descriptor.code ());
+
+		}
+
+		Map <Long, Set <String>> takenCodesByManager =
+			new HashMap<> ();
+
+		for (
+			Map.Entry <Long, Set <String>> codesEntry
+				: codesByManager.entrySet ()
+		) {
+
+			takenCodesByManager.put (
+				codesEntry.getKey (),
+				new HashSet<> (
+					ticketHelper.findTicketCodesIn (
+						transaction,
+						ticketManagerHelper.findRequired (
+							transaction,
+							codesEntry.getKey ()),
+						codesEntry.getValue ())));
+
+		}
+
+		return takenCodesByManager;
+
+	}
+
+	private
+	void queueTicket (
+			@NonNull Transaction transaction,
+			@NonNull TicketRec ticket) {
+
+		TicketManagerConfig ticketManagerConfig =
+			ticketManagerConfigCache.config (
+				transaction,
+				ticket.getTicketManager ());
+
+		// a state with no queue has nothing to wait for, so the ticket counts
+		// as queued, as it would have if inserted normally
+
+		if (
+			! ticketManagerConfig.stateRequired (
+				ticket.getTicketState ().getId ()
+			).showInQueue ()
+		) {
+
+			ticket
+
+				.setQueued (
+					true);
+
+			return;
+
+		}
+
+		QueueItemRec queueItem =
+			queueLogic.createQueueItem (
+				transaction,
+				ticket.getTicketState (),
+				"default",
+				ticket,
+				ticket,
+				ticket.getCode (),
+				ticket.getTicketState ().toString ());
+
+		ticket
+
+			.setQueueItem (
+				queueItem)
+
+			.setQueued (
+				true);
+
+	}
+
+}
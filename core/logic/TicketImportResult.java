@@ -0,0 +1,15 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Accessors (fluent = true)
+@Data
+public
+class TicketImportResult {
+
+	Long numProcessed = 0l;
+	Long numImported = 0l;
+	Long numSkipped = 0l;
+
+}
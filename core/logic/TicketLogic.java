@@ -0,0 +1,63 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+
+import wbs.framework.database.Transaction;
+
+import wbs.platform.user.model.UserRec;
+
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketNoteRec;
+import wbs.services.ticket.core.model.TicketRec;
+import wbs.services.ticket.core.model.TicketTemplateRec;
+
+public
+interface TicketLogic {
+
+	Object getDynamic (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			String fieldCode);
+
+	void setDynamic (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			String fieldCode,
+			Optional <?> valueOptional);
+
+	void setDynamicAll (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			Map <String, Optional <?>> valueOptionals);
+
+	void setDynamicAllResolved (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			Map <TicketFieldTypeSnapshot, Optional <?>> valueOptionals);
+
+	Map <TicketRec, Object> getDynamicBulk (
+			Transaction parentTransaction,
+			Collection <TicketRec> tickets,
+			String fieldCode);
+
+	void applyTemplate (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			TicketTemplateRec template,
+			Long delaySeconds,
+			UserRec user);
+
+	TicketNoteRec addNote (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			String noteText);
+
+	Optional <TicketRec> findTicketByCode (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager,
+			String code);
+
+}
@@ -0,0 +1,1016 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.services.ticket.core.logic.TicketPackedFields.packedFieldsDecode;
+import static wbs.services.ticket.core.logic.TicketPackedFields.packedFieldsEncode;
+import static wbs.utils.etc.EnumUtils.enumEqualSafe;
+import static wbs.utils.etc.NullUtils.isNotNull;
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
+import static wbs.utils.etc.OptionalUtils.optionalOf;
+import static wbs.utils.etc.OptionalUtils.optionalOrNull;
+import static wbs.utils.string.StringUtils.stringFormat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.NonNull;
+
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.entity.record.Record;
+import wbs.framework.logging.LogContext;
+import wbs.framework.object.ObjectHelper;
+import wbs.framework.object.ObjectManager;
+
+import wbs.platform.queue.logic.QueueLogic;
+import wbs.platform.user.model.UserRec;
+
+import wbs.services.ticket.core.model.TicketFieldStorage;
+import wbs.services.ticket.core.model.TicketFieldTypeRec;
+import wbs.services.ticket.core.model.TicketFieldValueObjectHelper;
+import wbs.services.ticket.core.model.TicketFieldValueRec;
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketNoteObjectHelper;
+import wbs.services.ticket.core.model.TicketNoteRec;
+import wbs.services.ticket.core.model.TicketObjectHelper;
+import wbs.services.ticket.core.model.TicketRec;
+import wbs.services.ticket.core.model.TicketStateRec;
+import wbs.services.ticket.core.model.TicketTemplateRec;
+
+@SingletonComponent ("ticketLogic")
+public
+class TicketLogicImplementation
+	implements TicketLogic {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@WeakSingletonDependency
+	ObjectManager objectManager;
+
+	@WeakSingletonDependency
+	QueueLogic queueLogic;
+
+	@SingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	@WeakSingletonDependency
+	TicketFieldValueObjectHelper ticketFieldValueHelper;
+
+	@WeakSingletonDependency
+	TicketObjectHelper ticketHelper;
+
+	@WeakSingletonDependency
+	TicketNoteObjectHelper ticketNoteHelper;
+
+	// constants
+
+	public final static
+	long ticketCodeCacheSize = 100000l;
+
+	// state
+
+	private final
+	Cache <String, Long> ticketIdsByCode =
+		CacheBuilder.newBuilder ()
+			.maximumSize (ticketCodeCacheSize)
+			.build ();
+
+	// implementation
+
+	@Override
+	public
+	Object getDynamic (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull String fieldCode) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"getDynamic");
+
+		) {
+
+			// find the ticket field type
+
+			TicketFieldTypeSnapshot ticketFieldType =
+				ticketManagerConfigCache.findFieldTypeByCodeRequired (
+					transaction,
+					ticket.getTicketManager (),
+					fieldCode);
+
+			// find the stored value
+
+			Object storedValue;
+
+			if (
+				packedStorage (
+					ticket)
+			) {
+
+				storedValue =
+					packedFieldsDecode (
+						ticket.getPackedFields ()
+					).get (
+						ticketFieldType.id ());
+
+			} else {
+
+				TicketFieldValueRec ticketFieldValue =
+					ticket.getTicketFieldValues ().get (
+						ticketFieldType.id ());
+
+				if (ticketFieldValue == null) {
+					return null;
+				}
+
+				storedValue =
+					rowValue (
+						ticketFieldType,
+						ticketFieldValue);
+
+			}
+
+			if (storedValue == null) {
+				return null;
+			}
+
+			// convert it
+
+			switch (ticketFieldType.dataType ()) {
+
+			case string:
+			case number:
+			case bool:
+
+				return storedValue;
+
+			case object:
+
+				ObjectHelper <?> objectHelper =
+					objectManager.objectHelperForTypeIdRequired (
+						ticketFieldType.objectTypeId ());
+
+				Object object =
+					objectHelper.findRequired (
+						transaction,
+						(Long) storedValue);
+
+				return object;
+
+			default:
+
+				throw new RuntimeException ();
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public
+	void setDynamic (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull String fieldCode,
+			@NonNull Optional <?> valueOptional) {
+
+		setDynamicAll (
+			parentTransaction,
+			ticket,
+			ImmutableMap.of (
+				fieldCode,
+				valueOptional));
+
+	}
+
+	@Override
+	public
+	void setDynamicAll (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull Map <String, Optional <?>> valueOptionals) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"setDynamicAll");
+
+		) {
+
+			// resolve field types
+
+			Map <TicketFieldTypeSnapshot, Optional <?>> resolvedValueOptionals =
+				new HashMap<> ();
+
+			valueOptionals.forEach (
+				(fieldCode, valueOptional) ->
+					resolvedValueOptionals.put (
+						ticketManagerConfigCache.findFieldTypeByCodeRequired (
+							transaction,
+							ticket.getTicketManager (),
+							fieldCode),
+						valueOptional));
+
+			setDynamicAllResolved (
+				transaction,
+				ticket,
+				resolvedValueOptionals);
+
+		}
+
+	}
+
+	@Override
+	public
+	void setDynamicAllResolved (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull Map <TicketFieldTypeSnapshot, Optional <?>> valueOptionals) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"setDynamicAllResolved");
+
+		) {
+
+			// work out the values to store
+
+			Map <TicketFieldTypeSnapshot, Object> storedValues =
+				new HashMap<> ();
+
+			valueOptionals.forEach (
+				(ticketFieldType, valueOptional) ->
+					storedValues.put (
+						ticketFieldType,
+						storedValue (
+							ticketFieldType,
+							valueOptional)));
+
+			// packed storage also keeps searchable fields as rows, so they
+			// can be found through the field value indexes
+
+			if (
+				packedStorage (
+					ticket)
+			) {
+
+				setPackedValues (
+					ticket,
+					storedValues);
+
+				storedValues.keySet ().removeIf (
+					ticketFieldType ->
+						! ticketFieldType.searchable ());
+
+				setRowValues (
+					transaction,
+					ticket,
+					storedValues);
+
+			} else {
+
+				long numInserted =
+					setRowValues (
+						transaction,
+						ticket,
+						storedValues);
+
+				if (numInserted > 0) {
+
+					ticket
+
+						.setNumFields (
+							ticket.getNumFields () + numInserted);
+
+				}
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public
+	Map <TicketRec, Object> getDynamicBulk (
+			@NonNull Transaction parentTransaction,
+			@NonNull Collection <TicketRec> tickets,
+			@NonNull String fieldCode) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"getDynamicBulk");
+
+		) {
+
+			Map <TicketRec, Object> values =
+				new HashMap<> ();
+
+			if (tickets.isEmpty ()) {
+				return values;
+			}
+
+			// resolve the field type for each ticket's manager, and read any
+			// packed values straight from the ticket
+
+			Map <TicketRec, TicketFieldTypeSnapshot> ticketFieldTypes =
+				new HashMap<> ();
+
+			Map <TicketRec, Object> storedValues =
+				new HashMap<> ();
+
+			List <TicketRec> rowTickets =
+				new ArrayList<> ();
+
+			Set <Long> rowTicketFieldTypeIds =
+				new HashSet<> ();
+
+			for (
+				TicketRec ticket
+					: tickets
+			) {
+
+				TicketFieldTypeSnapshot ticketFieldType =
+					ticketManagerConfigCache.findFieldTypeByCodeRequired (
+						transaction,
+						ticket.getTicketManager (),
+						fieldCode);
+
+				ticketFieldTypes.put (
+					ticket,
+					ticketFieldType);
+
+				if (
+					packedStorage (
+						ticket)
+				) {
+
+					Object storedValue =
+						packedFieldsDecode (
+							ticket.getPackedFields ()
+						).get (
+							ticketFieldType.id ());
+
+					if (
+						isNotNull (
+							storedValue)
+					) {
+
+						storedValues.put (
+							ticket,
+							storedValue);
+
+					}
+
+				} else {
+
+					rowTickets.add (
+						ticket);
+
+					rowTicketFieldTypeIds.add (
+						ticketFieldType.id ());
+
+				}
+
+			}
+
+			// load all the field value rows in one query
+
+			if (! rowTickets.isEmpty ()) {
+
+				List <TicketFieldValueRec> ticketFieldValues =
+					ticketHelper.findTicketFieldValues (
+						transaction,
+						rowTickets,
+						new ArrayList<> (
+							rowTicketFieldTypeIds));
+
+				for (
+					TicketFieldValueRec ticketFieldValue
+						: ticketFieldValues
+				) {
+
+					TicketRec ticket =
+						ticketFieldValue.getTicket ();
+
+					Object storedValue =
+						rowValue (
+							ticketFieldTypes.get (
+								ticket),
+							ticketFieldValue);
+
+					if (
+						isNotNull (
+							storedValue)
+					) {
+
+						storedValues.put (
+							ticket,
+							storedValue);
+
+					}
+
+				}
+
+			}
+
+			// collect plain values, and referenced ids by object type
+
+			Map <TicketRec, Long> objectIds =
+				new HashMap<> ();
+
+			Map <Long, Set <Long>> objectIdsByType =
+				new HashMap<> ();
+
+			storedValues.forEach (
+				(ticket, storedValue) -> {
+
+				TicketFieldTypeSnapshot ticketFieldType =
+					ticketFieldTypes.get (
+						ticket);
+
+				switch (ticketFieldType.dataType ()) {
+
+				case string:
+				case number:
+				case bool:
+
+					values.put (
+						ticket,
+						storedValue);
+
+					break;
+
+				case object:
+
+					objectIds.put (
+						ticket,
+						(Long) storedValue);
+
+					objectIdsByType.computeIfAbsent (
+						ticketFieldType.objectTypeId (),
+						objectTypeId ->
+							new HashSet<> ()
+					).add (
+						(Long) storedValue);
+
+					break;
+
+				default:
+
+					throw new RuntimeException ();
+
+				}
+
+			});
+
+			// load referenced objects with one query per object type
+
+			Map <Long, Map <Long, Object>> objectsByType =
+				new HashMap<> ();
+
+			objectIdsByType.forEach (
+				(objectTypeId, objectIds) -> {
+
+				ObjectHelper <?> objectHelper =
+					objectManager.objectHelperForTypeIdRequired (
+						objectTypeId);
+
+				List <? extends Record <?>> objects =
+					objectHelper.findManyRequired (
+						transaction,
+						new ArrayList<> (
+							objectIds));
+
+				Map <Long, Object> objectsById =
+					new HashMap<> ();
+
+				objects.forEach (
+					object ->
+						objectsById.put (
+							object.getId (),
+							object));
+
+				objectsByType.put (
+					objectTypeId,
+					objectsById);
+
+			});
+
+			objectIds.forEach (
+				(ticket, objectId) ->
+					values.put (
+						ticket,
+						objectsByType.get (
+							ticketFieldTypes.get (
+								ticket
+							).objectTypeId ()
+						).get (
+							objectId)));
+
+			return values;
+
+		}
+
+	}
+
+	@Override
+	public
+	void applyTemplate (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull TicketTemplateRec template,
+			@NonNull Long delaySeconds,
+			@NonNull UserRec user) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"applyTemplate");
+
+		) {
+
+			TicketStateRec newTicketState =
+				template.getTicketState ();
+
+			if (
+
+				delaySeconds < newTicketState.getMinimum ()
+
+				|| delaySeconds > newTicketState.getMaximum ()
+
+			) {
+
+				throw new IllegalArgumentException (
+					"Timestamp out of bounds");
+
+			}
+
+			// remove old queue item
+
+			if (
+				isNotNull (
+					ticket.getQueueItem ())
+			) {
+
+				queueLogic.processQueueItem (
+					transaction,
+					ticket.getQueueItem (),
+					user);
+
+				ticket
+
+					.setQueueItem (
+						null);
+
+			}
+
+			// update ticket state and timestamp
+
+			ticket
+
+				.setTicketState (
+					newTicketState)
+
+				.setTimestamp (
+					Instant.now ().plus (
+						Duration.standardSeconds (
+							delaySeconds)))
+
+				.setQueued (
+					false);
+
+		}
+
+	}
+
+	@Override
+	public
+	TicketNoteRec addNote (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull String noteText) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"addNote");
+
+		) {
+
+			// the insert hook appends it, and brings the count up to date
+
+			return ticketNoteHelper.insert (
+				transaction,
+				ticketNoteHelper.createInstance ()
+
+				.setTicket (
+					ticket)
+
+				.setNoteText (
+					noteText)
+
+			);
+
+		}
+
+	}
+
+	@Override
+	public
+	Optional <TicketRec> findTicketByCode (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull String code) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findTicketByCode");
+
+		) {
+
+			// codes never change, so a cached id can be trusted, misses are not
+			// cached since the ticket may be created later
+
+			String cacheKey =
+				stringFormat (
+					"%s/%s",
+					integerToDecimalString (
+						ticketManager.getId ()),
+					code);
+
+			Long ticketId =
+				ticketIdsByCode.getIfPresent (
+					cacheKey);
+
+			if (
+				isNotNull (
+					ticketId)
+			) {
+
+				return optionalOf (
+					ticketHelper.findRequired (
+						transaction,
+						ticketId));
+
+			}
+
+			TicketRec ticket =
+				ticketHelper.findTicketByCode (
+					transaction,
+					ticketManager,
+					code);
+
+			if (
+				isNull (
+					ticket)
+			) {
+				return optionalAbsent ();
+			}
+
+			ticketIdsByCode.put (
+				cacheKey,
+				ticket.getId ());
+
+			return optionalOf (
+				ticket);
+
+		}
+
+	}
+
+	// private implementation
+
+	private
+	boolean packedStorage (
+			@NonNull TicketRec ticket) {
+
+		return enumEqualSafe (
+			ticket.getTicketManager ().getFieldStorage (),
+			TicketFieldStorage.packed);
+
+	}
+
+	private
+	Object rowValue (
+			@NonNull TicketFieldTypeSnapshot ticketFieldType,
+			@NonNull TicketFieldValueRec ticketFieldValue) {
+
+		switch (ticketFieldType.dataType ()) {
+
+		case string:
+
+			return ticketFieldValue.getStringValue ();
+
+		case number:
+		case object:
+
+			return ticketFieldValue.getIntegerValue ();
+
+		case bool:
+
+			return ticketFieldValue.getBooleanValue ();
+
+		default:
+
+			throw new RuntimeException ();
+
+		}
+
+	}
+
+	private
+	Object storedValue (
+			@NonNull TicketFieldTypeSnapshot ticketFieldType,
+			@NonNull Optional <?> valueOptional) {
+
+		switch (ticketFieldType.dataType ()) {
+
+		case string:
+		case number:
+		case bool:
+
+			return optionalOrNull (
+				valueOptional);
+
+		case object:
+
+			Record <?> record =
+				(Record <?>)
+				optionalOrNull (
+					valueOptional);
+
+			if (
+				isNull (
+					record)
+			) {
+				return null;
+			}
+
+			return record.getId ();
+
+		default:
+
+			throw new RuntimeException ();
+
+		}
+
+	}
+
+	private
+	void setPackedValues (
+			@NonNull TicketRec ticket,
+			@NonNull Map <TicketFieldTypeSnapshot, Object> storedValues) {
+
+		Map <Long, Object> packedFields =
+			packedFieldsDecode (
+				ticket.getPackedFields ());
+
+		storedValues.forEach (
+			(ticketFieldType, storedValue) -> {
+
+			if (
+				isNull (
+					storedValue)
+			) {
+
+				packedFields.remove (
+					ticketFieldType.id ());
+
+			} else {
+
+				packedFields.put (
+					ticketFieldType.id (),
+					storedValue);
+
+			}
+
+		});
+
+		// only touch the ticket if something changed
+
+		String newPackedFields =
+			packedFieldsEncode (
+				packedFields);
+
+		if (
+			Objects.equals (
+				newPackedFields,
+				ticket.getPackedFields ())
+		) {
+			return;
+		}
+
+		ticket
+
+			.setPackedFields (
+				newPackedFields)
+
+			.setNumFields (
+				(long) packedFields.size ());
+
+	}
+
+	private
+	long setRowValues (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketRec ticket,
+			@NonNull Map <TicketFieldTypeSnapshot, Object> storedValues) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"setRowValues");
+
+		) {
+
+			long numInserted = 0;
+
+			for (
+				Map.Entry <TicketFieldTypeSnapshot, Object> storedValueEntry
+					: storedValues.entrySet ()
+			) {
+
+				TicketFieldTypeSnapshot ticketFieldType =
+					storedValueEntry.getKey ();
+
+				Object storedValue =
+					storedValueEntry.getValue ();
+
+				TicketFieldValueRec ticketFieldValue =
+					ticket.getTicketFieldValues ().get (
+						ticketFieldType.id ());
+
+				if (
+					isNotNull (
+						ticketFieldValue)
+				) {
+
+					// update in place, unless the value is unchanged
+
+					if (
+						Objects.equals (
+							rowValue (
+								ticketFieldType,
+								ticketFieldValue),
+							storedValue)
+					) {
+						continue;
+					}
+
+					setRowValue (
+						ticketFieldType,
+						ticketFieldValue,
+						storedValue);
+
+				} else {
+
+					// nothing to store
+
+					if (
+						isNull (
+							storedValue)
+					) {
+						continue;
+					}
+
+					// insert a new value
+
+					ticketFieldValue =
+						ticketFieldValueHelper.createInstance ()
+
+						.setTicket (
+							ticket)
+
+						.setTicketFieldType (
+							ticketFieldTypeReference (
+								transaction,
+								ticketFieldType));
+
+					setRowValue (
+						ticketFieldType,
+						ticketFieldValue,
+						storedValue);
+
+					ticket.getTicketFieldValues ().put (
+						ticketFieldType.id (),
+						ticketFieldValue);
+
+					numInserted ++;
+
+				}
+
+			}
+
+			return numInserted;
+
+		}
+
+	}
+
+	private
+	TicketFieldTypeRec ticketFieldTypeReference (
+			@NonNull Transaction transaction,
+			@NonNull TicketFieldTypeSnapshot ticketFieldType) {
+
+		// only the id is needed for the foreign key, so take a proxy rather
+		// than selecting a row the snapshot already describes
+
+		return (TicketFieldTypeRec)
+			transaction.hibernateSession ().load (
+				TicketFieldTypeRec.class,
+				ticketFieldType.id ());
+
+	}
+
+	private
+	void setRowValue (
+			@NonNull TicketFieldTypeSnapshot ticketFieldType,
+			@NonNull TicketFieldValueRec ticketFieldValue,
+			Object storedValue) {
+
+		switch (ticketFieldType.dataType ()) {
+
+		case string:
+
+			ticketFieldValue
+
+				.setStringValue (
+					(String)
+					storedValue);
+
+			break;
+
+		case number:
+		case object:
+
+			ticketFieldValue
+
+				.setIntegerValue (
+					(Long)
+					storedValue);
+
+			break;
+
+		case bool:
+
+			ticketFieldValue
+
+				.setBooleanValue (
+					(Boolean)
+					storedValue);
+
+			break;
+
+		default:
+
+			throw new RuntimeException ();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,122 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.OptionalUtils.optionalFromNullable;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
+import static wbs.utils.string.StringUtils.stringEqualSafe;
+import static wbs.utils.string.StringUtils.stringFormat;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Optional;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import wbs.services.ticket.core.model.TicketFieldStorage;
+
+@Accessors (fluent = true)
+@Value
+public
+class TicketManagerConfig {
+
+	Long ticketManagerId;
+	Long version;
+
+	TicketFieldStorage fieldStorage;
+	Boolean deferQueueItems;
+
+	List <TicketStateSnapshot> states;
+	Map <Long, TicketStateSnapshot> statesById;
+
+	List <TicketTemplateSnapshot> templates;
+
+	Map <String, TicketFieldTypeSnapshot> fieldTypesByCode;
+
+	// implementation
+
+	public
+	TicketStateSnapshot stateRequired (
+			@NonNull Long ticketStateId) {
+
+		TicketStateSnapshot state =
+			statesById.get (
+				ticketStateId);
+
+		if (state == null) {
+
+			throw new IllegalArgumentException (
+				stringFormat (
+					"No such ticket state: %s",
+					integerToDecimalString (
+						ticketStateId)));
+
+		}
+
+		return state;
+
+	}
+
+	public
+	TicketStateSnapshot stateByCodeRequired (
+			@NonNull String code) {
+
+		for (
+			TicketStateSnapshot state
+				: states
+		) {
+
+			if (
+				stringEqualSafe (
+					state.code (),
+					code)
+			) {
+				return state;
+			}
+
+		}
+
+		throw new IllegalArgumentException (
+			stringFormat (
+				"No such ticket state: %s",
+				code));
+
+	}
+
+	public
+	Optional <TicketFieldTypeSnapshot> fieldTypeByCode (
+			@NonNull String code) {
+
+		return optionalFromNullable (
+			fieldTypesByCode.get (
+				code));
+
+	}
+
+	public
+	TicketFieldTypeSnapshot fieldTypeByCodeRequired (
+			@NonNull String code) {
+
+		Optional <TicketFieldTypeSnapshot> fieldTypeOptional =
+			fieldTypeByCode (
+				code);
+
+		if (
+			! optionalIsPresent (
+				fieldTypeOptional)
+		) {
+
+			throw new IllegalArgumentException (
+				stringFormat (
+					"No such ticket field type: %s",
+					code));
+
+		}
+
+		return fieldTypeOptional.get ();
+
+	}
+
+}
@@ -0,0 +1,450 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.etc.NullUtils.isNotNull;
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
+import static wbs.utils.string.StringUtils.stringFormat;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Synchronization;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.model.TicketFieldTypeRec;
+import wbs.services.ticket.core.model.TicketManagerObjectHelper;
+import wbs.services.ticket.core.model.TicketManagerRec;
+import wbs.services.ticket.core.model.TicketStateRec;
+import wbs.services.ticket.core.model.TicketTemplateRec;
+
+@SingletonComponent ("ticketManagerConfigCache")
+public
+class TicketManagerConfigCache {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@WeakSingletonDependency
+	TicketManagerObjectHelper ticketManagerHelper;
+
+	// constants
+
+	public final static
+	long pollIntervalMillis = 5000l;
+
+	// state
+
+	private final
+	Map <Long, TicketManagerConfig> configsByManager =
+		new ConcurrentHashMap<> ();
+
+	private final
+	Map <org.hibernate.Transaction, Set <Long>> pendingEvictions =
+		new ConcurrentHashMap<> ();
+
+	private final
+	AtomicLong lastPollMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numHits =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numMisses =
+		new AtomicLong ();
+
+	// public implementation
+
+	public
+	TicketManagerConfig config (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"config");
+
+		) {
+
+			pollVersions (
+				transaction);
+
+			TicketManagerConfig config =
+				configsByManager.get (
+					ticketManager.getId ());
+
+			// the version on the manager catches changes committed before this
+			// transaction started, the poll catches the rest within an interval
+
+			if (
+				isNotNull (
+					config)
+				&& config.version ().equals (
+					ticketManager.getConfigVersion ())
+			) {
+
+				numHits.incrementAndGet ();
+
+				return config;
+
+			}
+
+			numMisses.incrementAndGet ();
+
+			return load (
+				transaction,
+				ticketManager);
+
+		}
+
+	}
+
+	public
+	Optional <TicketFieldTypeSnapshot> findFieldTypeByCode (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull String code) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findFieldTypeByCode");
+
+		) {
+
+			TicketManagerConfig config =
+				config (
+					transaction,
+					ticketManager);
+
+			if (
+				config.fieldTypesByCode ().containsKey (
+					code)
+			) {
+				return config.fieldTypeByCode (
+					code);
+			}
+
+			// reload for an unknown code, since the field type may have been
+			// created since we built this snapshot
+
+			numMisses.incrementAndGet ();
+
+			return load (
+				transaction,
+				ticketManager
+			).fieldTypeByCode (
+				code);
+
+		}
+
+	}
+
+	public
+	TicketFieldTypeSnapshot findFieldTypeByCodeRequired (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager,
+			@NonNull String code) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"findFieldTypeByCodeRequired");
+
+		) {
+
+			Optional <TicketFieldTypeSnapshot> fieldTypeOptional =
+				findFieldTypeByCode (
+					transaction,
+					ticketManager,
+					code);
+
+			if (
+				! optionalIsPresent (
+					fieldTypeOptional)
+			) {
+
+				throw new IllegalArgumentException (
+					stringFormat (
+						"No such ticket field type: %s",
+						code));
+
+			}
+
+			return fieldTypeOptional.get ();
+
+		}
+
+	}
+
+	public
+	void invalidate (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"invalidate");
+
+		) {
+
+			// bump the version on commit so other nodes drop their snapshots
+
+			ticketManagerHelper.incrementConfigVersionOnCommit (
+				transaction,
+				ticketManager);
+
+			// drop our own snapshots once the change is committed, or abandoned,
+			// since one loaded by this transaction may hold uncommitted state
+
+			org.hibernate.Transaction hibernateTransaction =
+				transaction.hibernateSession ().getTransaction ();
+
+			pendingEvictions.computeIfAbsent (
+				hibernateTransaction,
+				key -> {
+
+				hibernateTransaction.registerSynchronization (
+					new Synchronization () {
+
+					@Override
+					public
+					void beforeCompletion () {
+					}
+
+					@Override
+					public
+					void afterCompletion (
+							int status) {
+
+						Set <Long> ticketManagerIds =
+							pendingEvictions.remove (
+								hibernateTransaction);
+
+						if (
+							isNull (
+								ticketManagerIds)
+						) {
+							return;
+						}
+
+						configsByManager.keySet ().removeAll (
+							ticketManagerIds);
+
+					}
+
+				});
+
+				return ConcurrentHashMap.newKeySet ();
+
+			}).add (
+				ticketManager.getId ());
+
+		}
+
+	}
+
+	public
+	long numHits () {
+		return numHits.get ();
+	}
+
+	public
+	long numMisses () {
+		return numMisses.get ();
+	}
+
+	// private implementation
+
+	private
+	TicketManagerConfig load (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"load");
+
+		) {
+
+			// states
+
+			ImmutableList.Builder <TicketStateSnapshot> statesBuilder =
+				ImmutableList.builder ();
+
+			ImmutableMap.Builder <Long, TicketStateSnapshot> statesByIdBuilder =
+				ImmutableMap.builder ();
+
+			for (
+				TicketStateRec ticketState
+					: ticketManager.getTicketStates ()
+			) {
+
+				TicketStateSnapshot state =
+					new TicketStateSnapshot (
+						ticketState.getId (),
+						ticketState.getCode (),
+						ticketState.getName (),
+						ticketState.getDeleted (),
+						ticketState.getShowInQueue (),
+						ticketState.getMinimum (),
+						ticketState.getMaximum (),
+						ticketState.getPreferredQueueTime ());
+
+				statesBuilder.add (
+					state);
+
+				statesByIdBuilder.put (
+					state.id (),
+					state);
+
+			}
+
+			// templates, deleted ones are never offered
+
+			ImmutableList.Builder <TicketTemplateSnapshot> templatesBuilder =
+				ImmutableList.builder ();
+
+			for (
+				TicketTemplateRec ticketTemplate
+					: ticketManager.getTicketTemplates ()
+			) {
+
+				if (ticketTemplate.getDeleted ())
+					continue;
+
+				templatesBuilder.add (
+					new TicketTemplateSnapshot (
+						ticketTemplate.getId (),
+						ticketTemplate.getCode (),
+						ticketTemplate.getName (),
+						ticketTemplate.getDescription (),
+						isNotNull (
+								ticketTemplate.getTicketState ())
+							? ticketTemplate.getTicketState ().getId ()
+							: null));
+
+			}
+
+			// field types
+
+			ImmutableMap.Builder <String, TicketFieldTypeSnapshot>
+				fieldTypesBuilder =
+					ImmutableMap.builder ();
+
+			for (
+				TicketFieldTypeRec ticketFieldType
+					: ticketManager.getTicketFieldTypes ()
+			) {
+
+				fieldTypesBuilder.put (
+					ticketFieldType.getCode (),
+					new TicketFieldTypeSnapshot (
+						ticketFieldType.getId (),
+						ticketFieldType.getCode (),
+						ticketFieldType.getDataType (),
+						isNotNull (
+								ticketFieldType.getObjectType ())
+							? ticketFieldType.getObjectType ().getId ()
+							: null,
+						ticketFieldType.getSearchable ()));
+
+			}
+
+			TicketManagerConfig config =
+				new TicketManagerConfig (
+					ticketManager.getId (),
+					ticketManager.getConfigVersion (),
+					ticketManager.getFieldStorage (),
+					ticketManager.getDeferQueueItems (),
+					statesBuilder.build (),
+					statesByIdBuilder.build (),
+					templatesBuilder.build (),
+					fieldTypesBuilder.build ());
+
+			configsByManager.put (
+				ticketManager.getId (),
+				config);
+
+			return config;
+
+		}
+
+	}
+
+	private
+	void pollVersions (
+			@NonNull Transaction parentTransaction) {
+
+		long nowMillis =
+			System.currentTimeMillis ();
+
+		long lastMillis =
+			lastPollMillis.get ();
+
+		if (
+
+			nowMillis - lastMillis < pollIntervalMillis
+
+			|| ! lastPollMillis.compareAndSet (
+				lastMillis,
+				nowMillis)
+
+		) {
+			return;
+		}
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"pollVersions");
+
+		) {
+
+			Map <Long, Long> versions =
+				ticketManagerHelper.findConfigVersions (
+					transaction);
+
+			configsByManager.values ().removeIf (
+				config ->
+					! config.version ().equals (
+						versions.get (
+							config.ticketManagerId ())));
+
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.Transaction;
+import wbs.framework.object.ObjectHooks;
+
+import wbs.services.ticket.core.model.TicketManagerObjectHelper;
+import wbs.services.ticket.core.model.TicketManagerRec;
+
+public
+class TicketManagerHooks
+	implements ObjectHooks <TicketManagerRec> {
+
+	// singleton dependencies
+
+	@WeakSingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	@WeakSingletonDependency
+	TicketManagerObjectHelper ticketManagerHelper;
+
+	// implementation
+
+	@Override
+	public
+	void beforeUpdate (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		// counters and names change often and aren't in the snapshot, so only
+		// make every node reload when something in it has changed
+
+		if (
+			! ticketManagerHelper.configFieldsChanged (
+				parentTransaction,
+				ticketManager)
+		) {
+			return;
+		}
+
+		ticketManagerConfigCache.invalidate (
+			parentTransaction,
+			ticketManager);
+
+	}
+
+}
@@ -0,0 +1,97 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.etc.NullUtils.isNull;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.logging.LogContext;
+import wbs.framework.object.ObjectHooks;
+
+import wbs.services.ticket.core.model.TicketNoteObjectHelper;
+import wbs.services.ticket.core.model.TicketNoteRec;
+import wbs.services.ticket.core.model.TicketObjectHelper;
+import wbs.services.ticket.core.model.TicketRec;
+
+public
+class TicketNoteHooks
+	implements ObjectHooks <TicketNoteRec> {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@WeakSingletonDependency
+	TicketObjectHelper ticketHelper;
+
+	@WeakSingletonDependency
+	TicketNoteObjectHelper ticketNoteHelper;
+
+	// implementation
+
+	@Override
+	public
+	void beforeInsert (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketNoteRec ticketNote) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"beforeInsert");
+
+		) {
+
+			TicketRec ticket =
+				ticketNote.getTicket ();
+
+			// notes given an index, such as by an import, are numbered by
+			// whoever inserted them, everything else is appended here
+
+			if (
+				isNull (
+					ticketNote.getIndex ())
+			) {
+
+				// lock the ticket so concurrent appends take turns, rather than
+				// picking the same index
+
+				ticketHelper.lockTicket (
+					transaction,
+					ticket);
+
+				Long maxIndex =
+					ticketNoteHelper.findMaxIndex (
+						transaction,
+						ticket);
+
+				ticketNote
+
+					.setIndex (
+						isNull (
+								maxIndex)
+							? 0l
+							: maxIndex + 1);
+
+			}
+
+			// the count follows the notes, for the counter and search pages
+
+			ticket
+
+				.setNumNotes (
+					Math.max (
+						ticket.getNumNotes (),
+						ticketNote.getIndex () + 1));
+
+		}
+
+	}
+
+}
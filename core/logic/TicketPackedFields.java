@@ -0,0 +1,95 @@
+package wbs.services.ticket.core.logic;
+
+import static wbs.utils.etc.NullUtils.isNull;
+import static wbs.utils.etc.NumberUtils.integerToDecimalString;
+import static wbs.utils.etc.NumberUtils.parseIntegerRequired;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+public
+class TicketPackedFields {
+
+	// packed fields are a json object keyed by field type id, with strings,
+	// integers and booleans as themselves, and objects as their id
+
+	public static
+	Map <Long, Object> packedFieldsDecode (
+			String packedFields) {
+
+		Map <Long, Object> values =
+			new TreeMap<> ();
+
+		if (
+			isNull (
+				packedFields)
+		) {
+			return values;
+		}
+
+		JSONObject jsonObject =
+			(JSONObject)
+			JSONValue.parse (
+				packedFields);
+
+		jsonObject.forEach (
+			(key, value) ->
+				values.put (
+					parseIntegerRequired (
+						(String) key),
+					value));
+
+		return values;
+
+	}
+
+	public static
+	String packedFieldsEncode (
+			Map <Long, Object> values) {
+
+		if (values.isEmpty ()) {
+			return null;
+		}
+
+		// keys are sorted, so equal values always encode the same way
+
+		StringBuilder stringBuilder =
+			new StringBuilder ("{");
+
+		new TreeMap<> (
+			values
+		).forEach (
+			(key, value) -> {
+
+			if (stringBuilder.length () > 1) {
+
+				stringBuilder.append (
+					",");
+
+			}
+
+			stringBuilder.append (
+				JSONValue.toJSONString (
+					integerToDecimalString (
+						key)));
+
+			stringBuilder.append (
+				":");
+
+			stringBuilder.append (
+				JSONValue.toJSONString (
+					value));
+
+		});
+
+		stringBuilder.append (
+			"}");
+
+		return stringBuilder.toString ();
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.Transaction;
+import wbs.framework.object.ObjectHooks;
+
+import wbs.services.ticket.core.model.TicketStateRec;
+
+public
+class TicketStateHooks
+	implements ObjectHooks <TicketStateRec> {
+
+	// singleton dependencies
+
+	@WeakSingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	// implementation
+
+	@Override
+	public
+	void afterInsert (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketStateRec ticketState) {
+
+		ticketManagerConfigCache.invalidate (
+			parentTransaction,
+			ticketState.getTicketManager ());
+
+	}
+
+	@Override
+	public
+	void beforeUpdate (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketStateRec ticketState) {
+
+		ticketManagerConfigCache.invalidate (
+			parentTransaction,
+			ticketState.getTicketManager ());
+
+	}
+
+}
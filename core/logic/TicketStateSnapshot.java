@@ -0,0 +1,20 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Accessors (fluent = true)
+@Value
+public
+class TicketStateSnapshot {
+
+	Long id;
+	String code;
+	String name;
+	Boolean deleted;
+	Boolean showInQueue;
+	Long minimum;
+	Long maximum;
+	Long preferredQueueTime;
+
+}
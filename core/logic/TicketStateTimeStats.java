@@ -0,0 +1,411 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.NonNull;
+
+import org.joda.time.Duration;
+
+import wbs.framework.component.annotations.SingletonComponent;
+
+@SingletonComponent ("ticketStateTimeStats")
+public
+class TicketStateTimeStats {
+
+	// constants
+
+	// lag bucket n counts lags under 2^n milliseconds, the last one takes
+	// everything longer
+
+	public final static
+	int numLagBuckets = 32;
+
+	// state
+
+	private final
+	AtomicLong numTicks =
+		new AtomicLong ();
+
+	private final
+	AtomicLong totalTickMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong lastTickMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong maxTickMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numScanned =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numDue =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numQueued =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numSkipped =
+		new AtomicLong ();
+
+	private final
+	AtomicLong backlog =
+		new AtomicLong ();
+
+	private final
+	AtomicLongArray lagBuckets =
+		new AtomicLongArray (
+			numLagBuckets);
+
+	private final
+	AtomicLong maxLagMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numBatches =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numBatchFailures =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numCommits =
+		new AtomicLong ();
+
+	private final
+	AtomicLong numBatchTickets =
+		new AtomicLong ();
+
+	private final
+	AtomicLong totalBatchMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong lastBatchMillis =
+		new AtomicLong ();
+
+	private final
+	AtomicLong maxBatchMillis =
+		new AtomicLong ();
+
+	// implementation
+
+	public
+	void recordBatch (
+			@NonNull Long numTickets,
+			@NonNull Duration duration) {
+
+		long millis =
+			duration.getMillis ();
+
+		numBatches.incrementAndGet ();
+		numCommits.incrementAndGet ();
+
+		numBatchTickets.addAndGet (
+			numTickets);
+
+		totalBatchMillis.addAndGet (
+			millis);
+
+		lastBatchMillis.set (
+			millis);
+
+		maxBatchMillis.accumulateAndGet (
+			millis,
+			Math::max);
+
+	}
+
+	public
+	void recordBatchFailure () {
+
+		numBatches.incrementAndGet ();
+		numBatchFailures.incrementAndGet ();
+
+	}
+
+	public
+	void recordTick (
+			@NonNull Duration duration) {
+
+		long millis =
+			duration.getMillis ();
+
+		numTicks.incrementAndGet ();
+
+		totalTickMillis.addAndGet (
+			millis);
+
+		lastTickMillis.set (
+			millis);
+
+		maxTickMillis.accumulateAndGet (
+			millis,
+			Math::max);
+
+	}
+
+	public
+	void recordScanned (
+			@NonNull Long numTickets) {
+
+		numScanned.addAndGet (
+			numTickets);
+
+	}
+
+	public
+	void recordChecked (
+			@NonNull Long numDueTickets,
+			@NonNull Long numQueuedTickets,
+			@NonNull Long numSkippedTickets) {
+
+		numDue.addAndGet (
+			numDueTickets);
+
+		numQueued.addAndGet (
+			numQueuedTickets);
+
+		numSkipped.addAndGet (
+			numSkippedTickets);
+
+	}
+
+	public
+	void recordQueueLag (
+			@NonNull Duration lag) {
+
+		long millis =
+			Math.max (
+				lag.getMillis (),
+				0l);
+
+		lagBuckets.incrementAndGet (
+			lagBucket (
+				millis));
+
+		maxLagMillis.accumulateAndGet (
+			millis,
+			Math::max);
+
+	}
+
+	public
+	void recordBacklog (
+			@NonNull Long numTickets) {
+
+		backlog.set (
+			numTickets);
+
+	}
+
+	// accessors
+
+	public
+	long numBatches () {
+		return numBatches.get ();
+	}
+
+	public
+	long numBatchFailures () {
+		return numBatchFailures.get ();
+	}
+
+	public
+	long numCommits () {
+		return numCommits.get ();
+	}
+
+	public
+	long numBatchTickets () {
+		return numBatchTickets.get ();
+	}
+
+	public
+	long lastBatchMillis () {
+		return lastBatchMillis.get ();
+	}
+
+	public
+	long maxBatchMillis () {
+		return maxBatchMillis.get ();
+	}
+
+	public
+	long meanBatchMillis () {
+
+		long numCommitsValue =
+			numCommits.get ();
+
+		if (numCommitsValue == 0) {
+			return 0;
+		}
+
+		return totalBatchMillis.get () / numCommitsValue;
+
+	}
+
+	public
+	long numTicks () {
+		return numTicks.get ();
+	}
+
+	public
+	long lastTickMillis () {
+		return lastTickMillis.get ();
+	}
+
+	public
+	long maxTickMillis () {
+		return maxTickMillis.get ();
+	}
+
+	public
+	long meanTickMillis () {
+
+		long numTicksValue =
+			numTicks.get ();
+
+		if (numTicksValue == 0) {
+			return 0;
+		}
+
+		return totalTickMillis.get () / numTicksValue;
+
+	}
+
+	public
+	long numScanned () {
+		return numScanned.get ();
+	}
+
+	public
+	long numDue () {
+		return numDue.get ();
+	}
+
+	public
+	long numQueued () {
+		return numQueued.get ();
+	}
+
+	public
+	long numSkipped () {
+		return numSkipped.get ();
+	}
+
+	public
+	long backlog () {
+		return backlog.get ();
+	}
+
+	public
+	long maxLagMillis () {
+		return maxLagMillis.get ();
+	}
+
+	public
+	long[] lagBucketCounts () {
+
+		long[] counts =
+			new long [numLagBuckets];
+
+		for (
+			int bucket = 0;
+			bucket < numLagBuckets;
+			bucket ++
+		) {
+
+			counts [bucket] =
+				lagBuckets.get (
+					bucket);
+
+		}
+
+		return counts;
+
+	}
+
+	public
+	long lagPercentileMillis (
+			double percentile) {
+
+		long[] counts =
+			lagBucketCounts ();
+
+		long total = 0;
+
+		for (
+			long count
+				: counts
+		) {
+			total += count;
+		}
+
+		if (total == 0) {
+			return 0;
+		}
+
+		// report the upper bound of the bucket the percentile falls in, so
+		// this never understates the lag
+
+		long threshold =
+			(long) Math.ceil (
+				total * percentile / 100);
+
+		long cumulative = 0;
+
+		for (
+			int bucket = 0;
+			bucket < numLagBuckets;
+			bucket ++
+		) {
+
+			cumulative +=
+				counts [bucket];
+
+			if (cumulative >= threshold) {
+
+				return Math.min (
+					lagBucketLimitMillis (
+						bucket),
+					maxLagMillis.get ());
+
+			}
+
+		}
+
+		return maxLagMillis.get ();
+
+	}
+
+	// static implementation
+
+	public static
+	long lagBucketLimitMillis (
+			int bucket) {
+
+		return 1l << bucket;
+
+	}
+
+	private static
+	int lagBucket (
+			long millis) {
+
+		return Math.min (
+			64 - Long.numberOfLeadingZeros (
+				millis),
+			numLagBuckets - 1);
+
+	}
+
+}
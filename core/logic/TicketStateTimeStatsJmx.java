@@ -0,0 +1,210 @@
+package wbs.services.ticket.core.logic;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import wbs.framework.component.annotations.NormalLifecycleSetup;
+import wbs.framework.component.annotations.NormalLifecycleTeardown;
+import wbs.framework.component.annotations.SingletonComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+
+@SingletonComponent ("ticketStateTimeStatsJmx")
+public
+class TicketStateTimeStatsJmx
+	implements TicketStateTimeStatsJmxMBean {
+
+	// singleton dependencies
+
+	@SingletonDependency
+	TicketStateTimeStats stats;
+
+	// constants
+
+	public final static
+	String objectNameString =
+		"wbs.services.ticket:type=TicketStateTimeStats";
+
+	// life cycle
+
+	@NormalLifecycleSetup
+	public
+	void register () {
+
+		try {
+
+			MBeanServer mbeanServer =
+				ManagementFactory.getPlatformMBeanServer ();
+
+			ObjectName objectName =
+				new ObjectName (
+					objectNameString);
+
+			// registered by the daemon layer only, but guard against a second
+			// component context in the same jvm
+
+			if (mbeanServer.isRegistered (objectName)) {
+				return;
+			}
+
+			mbeanServer.registerMBean (
+				this,
+				objectName);
+
+		} catch (JMException exception) {
+
+			throw new RuntimeException (
+				exception);
+
+		}
+
+	}
+
+	@NormalLifecycleTeardown
+	public
+	void unregister () {
+
+		try {
+
+			MBeanServer mbeanServer =
+				ManagementFactory.getPlatformMBeanServer ();
+
+			ObjectName objectName =
+				new ObjectName (
+					objectNameString);
+
+			if (! mbeanServer.isRegistered (objectName)) {
+				return;
+			}
+
+			mbeanServer.unregisterMBean (
+				objectName);
+
+		} catch (JMException exception) {
+
+			throw new RuntimeException (
+				exception);
+
+		}
+
+	}
+
+	// ticks
+
+	@Override
+	public
+	long getNumTicks () {
+		return stats.numTicks ();
+	}
+
+	@Override
+	public
+	long getLastTickMillis () {
+		return stats.lastTickMillis ();
+	}
+
+	@Override
+	public
+	long getMeanTickMillis () {
+		return stats.meanTickMillis ();
+	}
+
+	@Override
+	public
+	long getMaxTickMillis () {
+		return stats.maxTickMillis ();
+	}
+
+	// tickets
+
+	@Override
+	public
+	long getNumScanned () {
+		return stats.numScanned ();
+	}
+
+	@Override
+	public
+	long getNumDue () {
+		return stats.numDue ();
+	}
+
+	@Override
+	public
+	long getNumQueued () {
+		return stats.numQueued ();
+	}
+
+	@Override
+	public
+	long getNumSkipped () {
+		return stats.numSkipped ();
+	}
+
+	@Override
+	public
+	long getBacklog () {
+		return stats.backlog ();
+	}
+
+	// batches
+
+	@Override
+	public
+	long getNumBatches () {
+		return stats.numBatches ();
+	}
+
+	@Override
+	public
+	long getNumBatchFailures () {
+		return stats.numBatchFailures ();
+	}
+
+	@Override
+	public
+	long getMeanBatchMillis () {
+		return stats.meanBatchMillis ();
+	}
+
+	@Override
+	public
+	long getMaxBatchMillis () {
+		return stats.maxBatchMillis ();
+	}
+
+	// queueing lag
+
+	@Override
+	public
+	long getLagMedianMillis () {
+		return stats.lagPercentileMillis (50);
+	}
+
+	@Override
+	public
+	long getLagNinetiethMillis () {
+		return stats.lagPercentileMillis (90);
+	}
+
+	@Override
+	public
+	long getLagNinetyNinthMillis () {
+		return stats.lagPercentileMillis (99);
+	}
+
+	@Override
+	public
+	long getLagMaxMillis () {
+		return stats.maxLagMillis ();
+	}
+
+	@Override
+	public
+	long[] getLagBucketCounts () {
+		return stats.lagBucketCounts ();
+	}
+
+}
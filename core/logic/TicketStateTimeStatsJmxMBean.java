@@ -0,0 +1,28 @@
+package wbs.services.ticket.core.logic;
+
+public
+interface TicketStateTimeStatsJmxMBean {
+
+	long getNumTicks ();
+	long getLastTickMillis ();
+	long getMeanTickMillis ();
+	long getMaxTickMillis ();
+
+	long getNumScanned ();
+	long getNumDue ();
+	long getNumQueued ();
+	long getNumSkipped ();
+	long getBacklog ();
+
+	long getNumBatches ();
+	long getNumBatchFailures ();
+	long getMeanBatchMillis ();
+	long getMaxBatchMillis ();
+
+	long getLagMedianMillis ();
+	long getLagNinetiethMillis ();
+	long getLagNinetyNinthMillis ();
+	long getLagMaxMillis ();
+	long[] getLagBucketCounts ();
+
+}
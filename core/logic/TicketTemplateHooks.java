@@ -0,0 +1,46 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.NonNull;
+
+import wbs.framework.component.annotations.WeakSingletonDependency;
+import wbs.framework.database.Transaction;
+import wbs.framework.object.ObjectHooks;
+
+import wbs.services.ticket.core.model.TicketTemplateRec;
+
+public
+class TicketTemplateHooks
+	implements ObjectHooks <TicketTemplateRec> {
+
+	// singleton dependencies
+
+	@WeakSingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	// implementation
+
+	@Override
+	public
+	void afterInsert (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketTemplateRec ticketTemplate) {
+
+		ticketManagerConfigCache.invalidate (
+			parentTransaction,
+			ticketTemplate.getTicketManager ());
+
+	}
+
+	@Override
+	public
+	void beforeUpdate (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketTemplateRec ticketTemplate) {
+
+		ticketManagerConfigCache.invalidate (
+			parentTransaction,
+			ticketTemplate.getTicketManager ());
+
+	}
+
+}
@@ -0,0 +1,17 @@
+package wbs.services.ticket.core.logic;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Accessors (fluent = true)
+@Value
+public
+class TicketTemplateSnapshot {
+
+	Long id;
+	String code;
+	String name;
+	String description;
+	Long ticketStateId;
+
+}
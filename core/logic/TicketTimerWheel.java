@@ -0,0 +1,384 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.NonNull;
+
+import org.joda.time.Instant;
+
+public
+class TicketTimerWheel {
+
+	// properties
+
+	private final
+	long tickMillis;
+
+	private final
+	int numSlots;
+
+	private final
+	int numLevels;
+
+	// state
+
+	private final
+	List <List <Set <Long>>> levels;
+
+	private final
+	Set <Long> overflow =
+		new HashSet<> ();
+
+	private final
+	Set <Long> expired =
+		new HashSet<> ();
+
+	private final
+	Map <Long, Long> dueTicks =
+		new HashMap<> ();
+
+	private
+	long currentTick;
+
+	// constructors
+
+	public
+	TicketTimerWheel (
+			long tickMillis,
+			int numSlots,
+			int numLevels,
+			@NonNull Instant now) {
+
+		this.tickMillis =
+			tickMillis;
+
+		this.numSlots =
+			numSlots;
+
+		this.numLevels =
+			numLevels;
+
+		levels =
+			new ArrayList<> ();
+
+		for (
+			int level = 0;
+			level < numLevels;
+			level ++
+		) {
+
+			List <Set <Long>> slots =
+				new ArrayList<> ();
+
+			for (
+				int slot = 0;
+				slot < numSlots;
+				slot ++
+			) {
+
+				slots.add (
+					new HashSet<> ());
+
+			}
+
+			levels.add (
+				slots);
+
+		}
+
+		currentTick =
+			toTick (
+				now);
+
+	}
+
+	// public implementation
+
+	public synchronized
+	void schedule (
+			@NonNull Long ticketId,
+			@NonNull Instant dueTime) {
+
+		long dueTick =
+			toTick (
+				dueTime);
+
+		Long oldDueTick =
+			dueTicks.put (
+				ticketId,
+				dueTick);
+
+		if (
+			oldDueTick != null
+			&& oldDueTick == dueTick
+		) {
+			return;
+		}
+
+		place (
+			ticketId,
+			dueTick);
+
+	}
+
+	public synchronized
+	void cancel (
+			@NonNull Long ticketId) {
+
+		dueTicks.remove (
+			ticketId);
+
+	}
+
+	public synchronized
+	List <Long> advance (
+			@NonNull Instant now) {
+
+		long nowTick =
+			toTick (
+				now);
+
+		// after a long pause, rebuild rather than turning tick by tick
+
+		if (nowTick - currentTick > span (numLevels)) {
+
+			currentTick =
+				nowTick;
+
+			levels.forEach (
+				slots ->
+					slots.forEach (
+						Set::clear));
+
+			overflow.clear ();
+
+			dueTicks.forEach (
+				this::place);
+
+		}
+
+		while (currentTick < nowTick) {
+
+			currentTick ++;
+
+			// move entries down from higher levels
+
+			for (
+				int level = numLevels - 1;
+				level > 0;
+				level --
+			) {
+
+				if (currentTick % span (level) != 0) {
+					continue;
+				}
+
+				Set <Long> slot =
+					slotFor (
+						level,
+						currentTick);
+
+				List <Long> ticketIds =
+					new ArrayList<> (
+						slot);
+
+				slot.clear ();
+
+				ticketIds.forEach (
+					this::replace);
+
+				if (
+					level == numLevels - 1
+					&& slotIndex (level, currentTick) == 0
+				) {
+
+					List <Long> overflowTicketIds =
+						new ArrayList<> (
+							overflow);
+
+					overflow.clear ();
+
+					overflowTicketIds.forEach (
+						this::replace);
+
+				}
+
+			}
+
+			// expire level zero
+
+			Set <Long> slot =
+				slotFor (
+					0,
+					currentTick);
+
+			expired.addAll (
+				slot);
+
+			slot.clear ();
+
+		}
+
+		// hand back expired entries which are still current, rescheduled
+		// tickets leave stale entries behind in their old slots
+
+		List <Long> dueTicketIds =
+			new ArrayList<> ();
+
+		for (
+			Long ticketId
+				: expired
+		) {
+
+			Long dueTick =
+				dueTicks.get (
+					ticketId);
+
+			if (
+				dueTick == null
+				|| dueTick > currentTick
+			) {
+				continue;
+			}
+
+			dueTicks.remove (
+				ticketId);
+
+			dueTicketIds.add (
+				ticketId);
+
+		}
+
+		expired.clear ();
+
+		return dueTicketIds;
+
+	}
+
+	public synchronized
+	long size () {
+
+		return dueTicks.size ();
+
+	}
+
+	// private implementation
+
+	private
+	void replace (
+			@NonNull Long ticketId) {
+
+		Long dueTick =
+			dueTicks.get (
+				ticketId);
+
+		if (dueTick == null) {
+			return;
+		}
+
+		place (
+			ticketId,
+			dueTick);
+
+	}
+
+	private
+	void place (
+			@NonNull Long ticketId,
+			long dueTick) {
+
+		if (dueTick <= currentTick) {
+
+			expired.add (
+				ticketId);
+
+			return;
+
+		}
+
+		// use the lowest level whose range covers the due time, each slot on a
+		// level spans a whole revolution of the level below
+
+		for (
+			int level = 0;
+			level < numLevels;
+			level ++
+		) {
+
+			if (dueTick - currentTick < span (level + 1)) {
+
+				slotFor (
+					level,
+					dueTick
+				).add (
+					ticketId);
+
+				return;
+
+			}
+
+		}
+
+		// beyond the top level, checked again each top level revolution
+
+		overflow.add (
+			ticketId);
+
+	}
+
+	private
+	long span (
+			int level) {
+
+		long span = 1;
+
+		for (
+			int index = 0;
+			index < level;
+			index ++
+		) {
+			span *= numSlots;
+		}
+
+		return span;
+
+	}
+
+	private
+	int slotIndex (
+			int level,
+			long tick) {
+
+		return (int) (
+			(tick / span (level)) % numSlots);
+
+	}
+
+	private
+	Set <Long> slotFor (
+			int level,
+			long tick) {
+
+		return levels.get (
+			level
+		).get (
+			slotIndex (
+				level,
+				tick));
+
+	}
+
+	private
+	long toTick (
+			@NonNull Instant instant) {
+
+		return instant.getMillis () / tickMillis;
+
+	}
+
+}
@@ -0,0 +1,74 @@
+package wbs.services.ticket.core.logic;
+
+import java.util.List;
+
+import lombok.NonNull;
+
+import org.joda.time.Instant;
+
+import wbs.framework.component.annotations.SingletonComponent;
+
+@SingletonComponent ("ticketWakeupScheduler")
+public
+class TicketWakeupScheduler {
+
+	// constants
+
+	public final static
+	long tickMillis = 1000l;
+
+	public final static
+	int numSlots = 64;
+
+	public final static
+	int numLevels = 3;
+
+	// state
+
+	private final
+	TicketTimerWheel timerWheel =
+		new TicketTimerWheel (
+			tickMillis,
+			numSlots,
+			numLevels,
+			Instant.now ());
+
+	// implementation
+
+	public
+	void scheduleWakeup (
+			@NonNull Long ticketId,
+			@NonNull Instant timestamp) {
+
+		timerWheel.schedule (
+			ticketId,
+			timestamp);
+
+	}
+
+	public
+	void cancelWakeup (
+			@NonNull Long ticketId) {
+
+		timerWheel.cancel (
+			ticketId);
+
+	}
+
+	public
+	List <Long> takeDueTicketIds (
+			@NonNull Instant now) {
+
+		return timerWheel.advance (
+			now);
+
+	}
+
+	public
+	long numScheduled () {
+
+		return timerWheel.size ();
+
+	}
+
+}
@@ -0,0 +1,13 @@
+package wbs.services.ticket.core.model;
+
+import java.util.List;
+
+import wbs.framework.database.Transaction;
+
+public
+interface TicketBulkUpdateDaoMethods {
+
+	List <Long> findIncompleteIds (
+			Transaction parentTransaction);
+
+}
@@ -1,7 +1,10 @@
 package wbs.services.ticket.core.model;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.joda.time.Instant;
+
 import wbs.framework.database.Transaction;
 
 public
@@ -12,7 +15,77 @@ interface TicketDaoMethods {
 			TicketRec ticket,
 			TicketFieldTypeRec ticketFieldType);
 
-	List <TicketRec> findUnqueuedTickets (
+	List <TicketRec> findTicketsByFieldValue (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager,
+			TicketFieldTypeRec ticketFieldType,
+			Object value,
+			Long maxResults);
+
+	List <TicketFieldValueRec> findTicketFieldValues (
+			Transaction parentTransaction,
+			List <TicketRec> tickets,
+			List <Long> ticketFieldTypeIds);
+
+	Long countUnqueuedTicketsDueBefore (
+			Transaction parentTransaction,
+			Instant dueBefore);
+
+	Long countUnqueuedTicketsDueBefore (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager,
+			Instant dueBefore);
+
+	List <Long> findUnqueuedTicketIdsDueBeforeInPartition (
+			Transaction parentTransaction,
+			Instant dueBefore,
+			Long partition,
+			Long numPartitions,
+			Long maxResults);
+
+	List <TicketDueTime> findUnqueuedTicketDueTimesBetween (
+			Transaction parentTransaction,
+			Instant dueAfter,
+			Instant dueBefore,
+			Long maxResults);
+
+	Boolean tryLockStateTimePartition (
+			Transaction parentTransaction,
+			Long partition);
+
+	void lockStateTimePartition (
+			Transaction parentTransaction,
+			Long partition);
+
+	List <TicketRec> findTicketsByIds (
+			Transaction parentTransaction,
+			List <Long> ticketIds);
+
+	void lockTicket (
+			Transaction parentTransaction,
+			TicketRec ticket);
+
+	TicketRec findTicketForPending (
+			Transaction parentTransaction,
+			Long ticketId);
+
+	List <Long> findTicketIdsInStateAfter (
+			Transaction parentTransaction,
+			TicketStateRec ticketState,
+			Long afterTicketId,
+			Long maxResults);
+
+	Long nextTicketCodeBlock (
 			Transaction parentTransaction);
 
-}
\ No newline at end of file
+	TicketRec findTicketByCode (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager,
+			String code);
+
+	List <String> findTicketCodesIn (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager,
+			Collection <String> codes);
+
+}
@@ -0,0 +1,17 @@
+package wbs.services.ticket.core.model;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import org.joda.time.Instant;
+
+@Accessors (fluent = true)
+@Data
+public
+class TicketDueTime {
+
+	Long ticketId;
+	Instant timestamp;
+	Long ticketStateId;
+
+}
@@ -0,0 +1,9 @@
+package wbs.services.ticket.core.model;
+
+public
+enum TicketFieldStorage {
+
+	rows,
+	packed;
+
+}
@@ -0,0 +1,21 @@
+package wbs.services.ticket.core.model;
+
+import java.util.Map;
+
+import wbs.framework.database.Transaction;
+
+public
+interface TicketManagerDaoMethods {
+
+	Map <Long, Long> findConfigVersions (
+			Transaction parentTransaction);
+
+	void incrementConfigVersionOnCommit (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager);
+
+	Boolean configFieldsChanged (
+			Transaction parentTransaction,
+			TicketManagerRec ticketManager);
+
+}
@@ -0,0 +1,22 @@
+package wbs.services.ticket.core.model;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+
+import wbs.framework.database.Transaction;
+
+public
+interface TicketNoteDaoMethods {
+
+	List <TicketNoteRec> findTicketNotes (
+			Transaction parentTransaction,
+			TicketRec ticket,
+			Optional <Long> beforeIndex,
+			Long maxResults);
+
+	Long findMaxIndex (
+			Transaction parentTransaction,
+			TicketRec ticket);
+
+}
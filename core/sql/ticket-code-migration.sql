@@ -0,0 +1,27 @@
+-- one off migration for existing databases, run before ticket-indexes.sql
+-- creates ticket_manager_code, codes used to be random so a manager may have
+-- the same code on more than one ticket, keep it on the oldest and give the
+-- others a code that can't clash with allocated ones, which are all digits
+
+BEGIN;
+
+LOCK TABLE ticket IN SHARE ROW EXCLUSIVE MODE;
+
+UPDATE ticket
+SET code = ticket.code || '-' || ticket.id
+FROM (
+	SELECT
+		id,
+		row_number () OVER (
+			PARTITION BY ticket_manager_id, code
+			ORDER BY id
+		) AS code_rank
+	FROM ticket
+) AS ranked
+WHERE ticket.id = ranked.id
+AND ranked.code_rank > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ticket_manager_code
+ON ticket (ticket_manager_id, code);
+
+COMMIT;
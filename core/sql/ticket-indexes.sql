@@ -0,0 +1,26 @@
+-- due time scan for the state time daemon, only unqueued tickets are ever
+-- scanned so the rest are left out
+
+CREATE INDEX ticket_unqueued_timestamp
+ON ticket (timestamp)
+WHERE NOT queued AND queue_item_id IS NULL;
+
+-- search by field value
+
+CREATE INDEX ticket_field_value_type_string
+ON ticket_field_value (ticket_field_type_id, string_value);
+
+CREATE INDEX ticket_field_value_type_integer
+ON ticket_field_value (ticket_field_type_id, integer_value);
+
+-- note indexes are allocated from the notes, this keeps them unique, existing
+-- databases need ticket-note-index-migration.sql first
+
+CREATE UNIQUE INDEX ticket_note_ticket_index
+ON ticket_note (ticket_id, "index");
+
+-- ticket codes are allocated from blocks, this keeps them unique, existing
+-- databases need ticket-code-migration.sql first
+
+CREATE UNIQUE INDEX ticket_manager_code
+ON ticket (ticket_manager_id, code);
@@ -0,0 +1,37 @@
+-- one off migration for existing databases, run before ticket-indexes.sql
+-- creates ticket_note_ticket_index, concurrent appends used to be able to give
+-- two notes on a ticket the same index, so renumber each ticket's notes from
+-- zero, keeping their order, then bring the ticket counts up to date
+
+BEGIN;
+
+LOCK TABLE ticket_note IN SHARE ROW EXCLUSIVE MODE;
+
+UPDATE ticket_note
+SET "index" = renumbered.new_index
+FROM (
+	SELECT
+		id,
+		row_number () OVER (
+			PARTITION BY ticket_id
+			ORDER BY "index", id
+		) - 1 AS new_index
+	FROM ticket_note
+) AS renumbered
+WHERE ticket_note.id = renumbered.id
+AND ticket_note."index" <> renumbered.new_index;
+
+UPDATE ticket
+SET num_notes = note_counts.num_notes
+FROM (
+	SELECT ticket_id, count (*) AS num_notes
+	FROM ticket_note
+	GROUP BY ticket_id
+) AS note_counts
+WHERE ticket.id = note_counts.ticket_id
+AND ticket.num_notes <> note_counts.num_notes;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ticket_note_ticket_index
+ON ticket_note (ticket_id, "index");
+
+COMMIT;
@@ -0,0 +1,3 @@
+-- blocks of ticket codes reserved by each node, see TicketCodeAllocator
+
+CREATE SEQUENCE ticket_code_block;
@@ -0,0 +1,19 @@
+-- one off migration of ticket timestamps from iso strings to a native sql
+-- timestamp, run once against existing databases before upgrading
+
+BEGIN;
+
+DROP INDEX IF EXISTS ticket_queued_timestamp;
+
+ALTER TABLE ticket
+ALTER COLUMN timestamp
+TYPE timestamp with time zone
+USING timestamp::timestamp with time zone;
+
+CREATE INDEX ticket_unqueued_timestamp
+ON ticket (timestamp)
+WHERE NOT queued AND queue_item_id IS NULL;
+
+COMMIT;
+
+ANALYZE ticket;
@@ -0,0 +1,187 @@
+package wbs.services.ticket.create;
+
+import static wbs.utils.etc.OptionalUtils.optionalAbsent;
+import static wbs.utils.etc.OptionalUtils.optionalOf;
+import static wbs.utils.string.StringUtils.capitalise;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import lombok.NonNull;
+
+public
+class ObjectTicketCreateAccessorChain {
+
+	// state
+
+	private final
+	List <MethodHandle> getters;
+
+	// constructors
+
+	private
+	ObjectTicketCreateAccessorChain (
+			@NonNull List <MethodHandle> getters) {
+
+		this.getters =
+			getters;
+
+	}
+
+	// implementation
+
+	public
+	Object get (
+			@NonNull Object object) {
+
+		Object value =
+			object;
+
+		for (
+			MethodHandle getter
+				: getters
+		) {
+
+			if (value == null) {
+				return null;
+			}
+
+			try {
+
+				value =
+					(Object)
+					getter.invokeExact (
+						value);
+
+			} catch (RuntimeException | Error exception) {
+
+				throw exception;
+
+			} catch (Throwable throwable) {
+
+				throw new RuntimeException (
+					throwable);
+
+			}
+
+		}
+
+		return value;
+
+	}
+
+	// static implementation
+
+	public static
+	Optional <ObjectTicketCreateAccessorChain> compileAccessorChain (
+			@NonNull Class <?> objectClass,
+			@NonNull String valuePath) {
+
+		ImmutableList.Builder <MethodHandle> gettersBuilder =
+			ImmutableList.builder ();
+
+		Class <?> currentClass =
+			objectClass;
+
+		for (
+			String segment
+				: valuePath.split ("\\.")
+		) {
+
+			// anything other than a plain property, such as "parent", is left
+			// to the generic dereference
+
+			Optional <Method> getterOptional =
+				findGetter (
+					currentClass,
+					segment);
+
+			if (! getterOptional.isPresent ()) {
+				return optionalAbsent ();
+			}
+
+			Method getter =
+				getterOptional.get ();
+
+			try {
+
+				gettersBuilder.add (
+					MethodHandles.publicLookup ()
+						.unreflect (getter)
+						.asType (
+							MethodType.methodType (
+								Object.class,
+								Object.class)));
+
+			} catch (IllegalAccessException exception) {
+
+				return optionalAbsent ();
+
+			}
+
+			currentClass =
+				getter.getReturnType ();
+
+		}
+
+		return optionalOf (
+			new ObjectTicketCreateAccessorChain (
+				gettersBuilder.build ()));
+
+	}
+
+	private static
+	Optional <Method> findGetter (
+			@NonNull Class <?> objectClass,
+			@NonNull String propertyName) {
+
+		if (propertyName.isEmpty ()) {
+			return optionalAbsent ();
+		}
+
+		for (
+			String prefix
+				: ImmutableList.of ("get", "is")
+		) {
+
+			try {
+
+				Method method =
+					objectClass.getMethod (
+						prefix + capitalise (
+							propertyName));
+
+				if (
+
+					Modifier.isStatic (
+						method.getModifiers ())
+
+					|| method.getReturnType () == void.class
+
+				) {
+					continue;
+				}
+
+				return optionalOf (
+					method);
+
+			} catch (NoSuchMethodException exception) {
+
+				continue;
+
+			}
+
+		}
+
+		return optionalAbsent ();
+
+	}
+
+}
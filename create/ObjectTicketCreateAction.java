@@ -9,7 +9,8 @@ import static wbs.utils.etc.TypeUtils.genericCastUnchecked;
 import static wbs.utils.string.StringUtils.capitalise;
 import static wbs.utils.string.StringUtils.stringFormat;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.google.common.base.Optional;
 
@@ -49,10 +50,8 @@ import wbs.platform.user.console.UserConsoleLogic;
 import wbs.utils.etc.PropertyUtils;
 
 import wbs.services.ticket.core.console.TicketConsoleHelper;
-import wbs.services.ticket.core.console.TicketFieldValueConsoleHelper;
-import wbs.services.ticket.core.model.TicketFieldTypeObjectHelper;
-import wbs.services.ticket.core.model.TicketFieldTypeRec;
-import wbs.services.ticket.core.model.TicketFieldValueRec;
+import wbs.services.ticket.core.logic.TicketFieldTypeSnapshot;
+import wbs.services.ticket.core.logic.TicketLogic;
 import wbs.services.ticket.core.model.TicketManagerRec;
 import wbs.services.ticket.core.model.TicketRec;
 import wbs.web.responder.WebResponder;
@@ -102,13 +101,10 @@ class ObjectTicketCreateAction <
 	TextObjectHelper textHelper;
 
 	@SingletonDependency
-	TicketFieldTypeObjectHelper ticketFieldTypeHelper;
+	TicketConsoleHelper ticketHelper;
 
 	@SingletonDependency
-	TicketFieldValueConsoleHelper ticketFieldValueHelper;
-
-	@SingletonDependency
-	TicketConsoleHelper ticketHelper;
+	TicketLogic ticketLogic;
 
 	@SingletonDependency
 	UserConsoleLogic userConsoleLogic;
@@ -149,7 +145,7 @@ class ObjectTicketCreateAction <
 	String ticketManagerPath;
 
 	@Getter @Setter
-	List <ObjectTicketCreateSetFieldSpec> ticketFieldSpecs;
+	ObjectTicketCreatePlanCache planCache;
 
 	// state
 
@@ -258,95 +254,35 @@ class ObjectTicketCreateAction <
 				.setTicketManager (
 					ticketManager);
 
-			for (
-				ObjectTicketCreateSetFieldSpec ticketFieldSpec
-					: ticketFieldSpecs
-			) {
-
-				TicketFieldTypeRec ticketFieldType =
-					ticketFieldTypeHelper.findByCodeRequired (
-						transaction,
-						ticketManager,
-						ticketFieldSpec.fieldTypeCode ());
-
-				TicketFieldValueRec ticketFieldValue =
-					ticketFieldValueHelper.createInstance ()
-
-					.setTicket (
-						ticket)
-
-					.setTicketFieldType (
-						ticketFieldType);
-
-				switch (ticketFieldType.getDataType ()) {
-
-				case string:
-
-					ticketFieldValue.setStringValue (
-						(String)
-						objectManager.dereferenceObsolete (
-							transaction,
-							contextObject,
-							ticketFieldSpec.valuePath ()));
-
-					break;
-
-				case number:
-
-					ticketFieldValue.setIntegerValue (
-						(Long)
-						objectManager.dereferenceObsolete (
-							transaction,
-							contextObject,
-							ticketFieldSpec.valuePath ()));
-
-					break;
+			// set fields, using the plan compiled for this manager, whose field
+			// types are already resolved
 
-				case bool:
-
-					ticketFieldValue.setBooleanValue (
-						(Boolean)
-						objectManager.dereferenceObsolete (
-							transaction,
-							contextObject,
-							ticketFieldSpec.valuePath ()));
-
-					break;
-
-				case object:
-
-					Long objectId = (
-						(Record <?>)
-						objectManager.dereferenceObsolete (
-							transaction,
-							contextObject,
-							ticketFieldSpec.valuePath ())
-					).getId ();
-
-					ticketFieldValue
-
-						.setIntegerValue (
-							objectId);
-
-					break;
-
-				default:
-
-					throw new RuntimeException ();
-
-				}
+			ObjectTicketCreatePlan plan =
+				planCache.plan (
+					transaction,
+					ticketManager);
 
-				ticket
+			Map <TicketFieldTypeSnapshot, Optional <?>> fieldValues =
+				new LinkedHashMap<> ();
 
-					.setNumFields (
-						ticket.getNumFields () + 1);
+			for (
+				ObjectTicketCreatePlanField planField
+					: plan.fields ()
+			) {
 
-				ticket.getTicketFieldValues ().put (
-					ticketFieldType.getId (),
-					ticketFieldValue);
+				fieldValues.put (
+					planField.fieldType (),
+					planField.valueExtractor ().extract (
+						transaction,
+						contextObject));
 
 			}
 
+			ticketLogic.setDynamicAllResolved (
+				transaction,
+				ticket,
+				fieldValues);
+
 			// set type code
 
 			if (consoleHelper.typeCodeExists ()) {
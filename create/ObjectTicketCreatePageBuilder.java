@@ -88,6 +88,10 @@ class ObjectTicketCreatePageBuilder
 	ComponentProvider <ObjectTicketCreateAction <TicketRec, TicketManagerRec>>
 	objectTicketCreateActionProvider;
 
+	@PrototypeDependency
+	ComponentProvider <ObjectTicketCreatePlanCache>
+		objectTicketCreatePlanCacheProvider;
+
 	@PrototypeDependency
 	ComponentProvider <TabContextResponder> tabContextResponderProvider;
 
@@ -121,6 +125,7 @@ class ObjectTicketCreatePageBuilder
 	String typeCode;
 	FieldsProvider <TicketRec, TicketManagerRec> fieldsProvider;
 	List <ObjectTicketCreateSetFieldSpec> ticketFields;
+	ObjectTicketCreatePlanCache planCache;
 	String name;
 	String tabName;
 	String tabLabel;
@@ -159,6 +164,18 @@ class ObjectTicketCreatePageBuilder
 			setDefaults (
 				taskLogger);
 
+			planCache =
+				objectTicketCreatePlanCacheProvider.provide (
+					taskLogger)
+
+				.objectClass (
+					consoleHelper.objectClass ())
+
+				.ticketFieldSpecs (
+					ticketFields)
+
+				.compileValuePaths ();
+
 			for (
 				ResolvedConsoleContextExtensionPoint extensionPoint
 					: consoleMetaManager.resolveExtensionPoint (
@@ -260,8 +277,8 @@ class ObjectTicketCreatePageBuilder
 				.formContextBuilder (
 					formContextBuilder)
 
-				.ticketFieldSpecs(
-						ticketFields)
+				.planCache (
+					planCache)
 
 				.ticketManagerPath(
 					ticketManagerPath)
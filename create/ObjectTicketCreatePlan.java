@@ -0,0 +1,18 @@
+package wbs.services.ticket.create;
+
+import java.util.List;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+@Accessors (fluent = true)
+@Value
+public
+class ObjectTicketCreatePlan {
+
+	Long ticketManagerId;
+	Long configVersion;
+
+	List <ObjectTicketCreatePlanField> fields;
+
+}
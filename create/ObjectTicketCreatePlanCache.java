@@ -0,0 +1,261 @@
+package wbs.services.ticket.create;
+
+import static wbs.utils.etc.NullUtils.isNotNull;
+import static wbs.utils.etc.OptionalUtils.optionalFromNullable;
+import static wbs.utils.etc.OptionalUtils.optionalIsPresent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import wbs.console.helper.manager.ConsoleObjectManager;
+
+import wbs.framework.component.annotations.ClassSingletonDependency;
+import wbs.framework.component.annotations.PrototypeComponent;
+import wbs.framework.component.annotations.SingletonDependency;
+import wbs.framework.database.NestedTransaction;
+import wbs.framework.database.Transaction;
+import wbs.framework.entity.record.Record;
+import wbs.framework.logging.LogContext;
+
+import wbs.services.ticket.core.logic.TicketFieldTypeSnapshot;
+import wbs.services.ticket.core.logic.TicketManagerConfig;
+import wbs.services.ticket.core.logic.TicketManagerConfigCache;
+import wbs.services.ticket.core.model.TicketFieldDataType;
+import wbs.services.ticket.core.model.TicketManagerRec;
+
+@Accessors (fluent = true)
+@PrototypeComponent ("objectTicketCreatePlanCache")
+public
+class ObjectTicketCreatePlanCache {
+
+	// singleton dependencies
+
+	@ClassSingletonDependency
+	LogContext logContext;
+
+	@SingletonDependency
+	ConsoleObjectManager objectManager;
+
+	@SingletonDependency
+	TicketManagerConfigCache ticketManagerConfigCache;
+
+	// properties
+
+	@Getter @Setter
+	Class <?> objectClass;
+
+	@Getter @Setter
+	List <ObjectTicketCreateSetFieldSpec> ticketFieldSpecs;
+
+	// state
+
+	private
+	Map <String, Optional <ObjectTicketCreateAccessorChain>> accessorChains;
+
+	private final
+	Map <Long, ObjectTicketCreatePlan> plansByManager =
+		new ConcurrentHashMap<> ();
+
+	// implementation
+
+	public
+	ObjectTicketCreatePlanCache compileValuePaths () {
+
+		ImmutableMap.Builder <String, Optional <ObjectTicketCreateAccessorChain>>
+			accessorChainsBuilder =
+				ImmutableMap.builder ();
+
+		for (
+			String valuePath
+				: ticketFieldSpecs.stream ()
+					.map (ObjectTicketCreateSetFieldSpec::valuePath)
+					.distinct ()
+					.collect (Collectors.toList ())
+		) {
+
+			accessorChainsBuilder.put (
+				valuePath,
+				ObjectTicketCreateAccessorChain.compileAccessorChain (
+					objectClass,
+					valuePath));
+
+		}
+
+		accessorChains =
+			accessorChainsBuilder.build ();
+
+		return this;
+
+	}
+
+	public
+	ObjectTicketCreatePlan plan (
+			@NonNull Transaction parentTransaction,
+			@NonNull TicketManagerRec ticketManager) {
+
+		try (
+
+			NestedTransaction transaction =
+				parentTransaction.nestTransaction (
+					logContext,
+					"plan");
+
+		) {
+
+			// plans follow the manager config version, which the field type
+			// hooks bump on any change
+
+			TicketManagerConfig config =
+				ticketManagerConfigCache.config (
+					transaction,
+					ticketManager);
+
+			ObjectTicketCreatePlan plan =
+				plansByManager.get (
+					ticketManager.getId ());
+
+			if (
+
+				isNotNull (
+					plan)
+
+				&& plan.configVersion ().equals (
+					config.version ())
+
+			) {
+				return plan;
+			}
+
+			plan =
+				compile (
+					config);
+
+			plansByManager.put (
+				ticketManager.getId (),
+				plan);
+
+			return plan;
+
+		}
+
+	}
+
+	// private implementation
+
+	private
+	ObjectTicketCreatePlan compile (
+			@NonNull TicketManagerConfig config) {
+
+		ImmutableList.Builder <ObjectTicketCreatePlanField> fieldsBuilder =
+			ImmutableList.builder ();
+
+		for (
+			ObjectTicketCreateSetFieldSpec ticketFieldSpec
+				: ticketFieldSpecs
+		) {
+
+			TicketFieldTypeSnapshot ticketFieldType =
+				config.fieldTypeByCodeRequired (
+					ticketFieldSpec.fieldTypeCode ());
+
+			fieldsBuilder.add (
+				new ObjectTicketCreatePlanField (
+					ticketFieldType,
+					ticketFieldSpec.valuePath (),
+					valueExtractor (
+						ticketFieldType.dataType (),
+						ticketFieldSpec.valuePath ())));
+
+		}
+
+		return new ObjectTicketCreatePlan (
+			config.ticketManagerId (),
+			config.version (),
+			fieldsBuilder.build ());
+
+	}
+
+	private
+	ObjectTicketCreateValueExtractor valueExtractor (
+			@NonNull TicketFieldDataType dataType,
+			@NonNull String valuePath) {
+
+		Class <?> valueClass =
+			valueClass (
+				dataType);
+
+		Optional <ObjectTicketCreateAccessorChain> accessorChainOptional =
+			accessorChains.get (
+				valuePath);
+
+		// call the compiled getters directly where we could compile the path,
+		// otherwise fall back to the generic dereference
+
+		if (
+			optionalIsPresent (
+				accessorChainOptional)
+		) {
+
+			ObjectTicketCreateAccessorChain accessorChain =
+				accessorChainOptional.get ();
+
+			return (transaction, contextObject) ->
+				optionalFromNullable (
+					valueClass.cast (
+						accessorChain.get (
+							contextObject)));
+
+		}
+
+		return (transaction, contextObject) ->
+			optionalFromNullable (
+				valueClass.cast (
+					objectManager.dereferenceObsolete (
+						transaction,
+						contextObject,
+						valuePath)));
+
+	}
+
+	private
+	Class <?> valueClass (
+			@NonNull TicketFieldDataType dataType) {
+
+		switch (dataType) {
+
+		case string:
+
+			return String.class;
+
+		case number:
+
+			return Long.class;
+
+		case bool:
+
+			return Boolean.class;
+
+		case object:
+
+			return Record.class;
+
+		default:
+
+			throw new RuntimeException ();
+
+		}
+
+	}
+
+}
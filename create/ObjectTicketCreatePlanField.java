@@ -0,0 +1,18 @@
+package wbs.services.ticket.create;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import wbs.services.ticket.core.logic.TicketFieldTypeSnapshot;
+
+@Accessors (fluent = true)
+@Value
+public
+class ObjectTicketCreatePlanField {
+
+	TicketFieldTypeSnapshot fieldType;
+	String valuePath;
+
+	ObjectTicketCreateValueExtractor valueExtractor;
+
+}
@@ -0,0 +1,15 @@
+package wbs.services.ticket.create;
+
+import com.google.common.base.Optional;
+
+import wbs.framework.database.Transaction;
+import wbs.framework.entity.record.Record;
+
+public
+interface ObjectTicketCreateValueExtractor {
+
+	Optional <?> extract (
+			Transaction parentTransaction,
+			Record <?> contextObject);
+
+}